@@ -0,0 +1,296 @@
+package com.example.gateway.filter;
+
+import com.example.security.JwtPrincipal;
+import com.example.security.reactive.JwtAuthenticationWebFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gateway filter factory limiting the request rate of every client on a route.
+ * <p>
+ * Each client gets a token bucket holding up to {@code burstCapacity} requests and refilled with
+ * {@code replenishRate} requests per second. Clients are identified by the subject of their JWT, or by their IP
+ * address on routes that do not require authentication such as login and registration. Behind load balancers or
+ * proxies, set {@code rate-limit.trusted-proxies} to their number, so the IP address is taken from the
+ * {@code X-Forwarded-For} entry appended by the outermost trusted proxy; entries before it can be forged by the
+ * client and are ignored. Requests exceeding the
+ * limit are rejected with 429 (Too Many Requests) and a {@code Retry-After} header; allowed requests carry the
+ * number of remaining requests in {@code X-RateLimit-Remaining}.
+ * </p>
+ * <p>
+ * The state of a bucket is a single timestamp updated by compare-and-set, so concurrent requests never block.
+ * Buckets live in memory, so no Redis is needed, but each gateway instance enforces its own limit. A bucket that
+ * has been idle long enough to refill completely is indistinguishable from a new one and is evicted.
+ * Rejections are counted in the {@code gateway.ratelimit.rejected} metric, tagged with the route.
+ * </p>
+ * <p>
+ * The filter has a fixed order ahead of the {@link ResponseCacheGatewayFilterFactory response cache}, so requests
+ * answered from the cache are limited as well, wherever the filters are listed on a route.
+ * </p>
+ * <p>
+ * Usage: {@code - RateLimit=replenishRate,burstCapacity} in the filters of a route.
+ * </p>
+ */
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+	private static final String REJECTED_METRIC = "gateway.ratelimit.rejected";
+	private static final String ROUTE_TAG = "route";
+	private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+	private static final String USER_KEY_PREFIX = "user:";
+	private static final String IP_KEY_PREFIX = "ip:";
+	private static final String UNKNOWN_CLIENT = "unknown";
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Order of the rate limiting filter, before the response cache.
+	 */
+	public static final int ORDER = ResponseCacheGatewayFilterFactory.ORDER - 1;
+
+	private final MeterRegistry meterRegistry;
+	private final RemoteAddressResolver remoteAddressResolver;
+	private final LongSupplier nanoClock;
+
+	/**
+	 * Constructs a RateLimitGatewayFilterFactory.
+	 *
+	 * @param meterRegistry the registry the rejection counters are published to
+	 * @param trustedProxies the number of proxies in front of the gateway appending to {@code X-Forwarded-For},
+	 *        0 to identify anonymous clients by the address they connect from
+	 */
+	@Autowired
+	public RateLimitGatewayFilterFactory(MeterRegistry meterRegistry,
+			@Value("${rate-limit.trusted-proxies:0}") int trustedProxies) {
+		this(meterRegistry, trustedProxies, System::nanoTime);
+	}
+
+	/**
+	 * Constructs a RateLimitGatewayFilterFactory with the given clock.
+	 *
+	 * @param meterRegistry the registry the rejection counters are published to
+	 * @param trustedProxies the number of proxies in front of the gateway appending to {@code X-Forwarded-For}
+	 * @param nanoClock the clock refilling and evicting the buckets, in nanoseconds like {@link System#nanoTime()}
+	 */
+	RateLimitGatewayFilterFactory(MeterRegistry meterRegistry, int trustedProxies, LongSupplier nanoClock) {
+		super(Config.class);
+		this.meterRegistry = meterRegistry;
+		this.remoteAddressResolver = trustedProxies > 0
+				? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+				: new RemoteAddressResolver() { };
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Returns the order of the arguments in the shortcut notation.
+	 *
+	 * @return the argument names
+	 */
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("replenishRate", "burstCapacity");
+	}
+
+	/**
+	 * Creates the rate limiting filter of a route. Every route has its own buckets.
+	 *
+	 * @param config the limits of the route
+	 * @return the filter
+	 * @throws IllegalStateException if the limits are not positive
+	 */
+	@Override
+	public GatewayFilter apply(Config config) {
+		if (config.getReplenishRate() <= 0 || config.getBurstCapacity() <= 0) {
+			throw new IllegalStateException("RateLimit replenishRate and burstCapacity must be positive");
+		}
+		long emissionInterval = NANOS_PER_SECOND / config.getReplenishRate();
+		long burstTolerance = emissionInterval * config.getBurstCapacity();
+		Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+				.maximumSize(config.getMaxKeys())
+				.expireAfterAccess(Duration.ofNanos(burstTolerance))
+				.ticker(nanoClock::getAsLong)
+				.build();
+		Counter rejected = meterRegistry.counter(REJECTED_METRIC, ROUTE_TAG, String.valueOf(config.getRouteId()));
+
+		GatewayFilter filter = (exchange, chain) -> {
+			TokenBucket bucket = buckets.get(clientKey(exchange), key -> new TokenBucket(emissionInterval, burstTolerance));
+			long remaining = bucket.tryConsume(nanoClock.getAsLong());
+			ServerHttpResponse response = exchange.getResponse();
+			if (remaining < 0) {
+				rejected.increment();
+				response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+				response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, -remaining)));
+				return response.setComplete();
+			}
+			response.getHeaders().set(REMAINING_HEADER, Long.toString(remaining));
+			return chain.filter(exchange);
+		};
+		return new OrderedGatewayFilter(filter, ORDER);
+	}
+
+	/**
+	 * Identifies the client of a request by its authenticated principal, or by its IP address if it has none.
+	 *
+	 * @param exchange the current server exchange
+	 * @return the bucket key of the client
+	 */
+	private String clientKey(ServerWebExchange exchange) {
+		JwtPrincipal principal = exchange.getAttribute(JwtAuthenticationWebFilter.PRINCIPAL_ATTRIBUTE);
+		if (principal != null) {
+			return USER_KEY_PREFIX + principal.getUsername();
+		}
+		InetSocketAddress remoteAddress = remoteAddressResolver.resolve(exchange);
+		if (remoteAddress == null || remoteAddress.getAddress() == null) {
+			return IP_KEY_PREFIX + UNKNOWN_CLIENT;
+		}
+		return IP_KEY_PREFIX + remoteAddress.getAddress().getHostAddress();
+	}
+
+	/**
+	 * Lock-free token bucket.
+	 * <p>
+	 * Instead of a token count and a refill time, the bucket stores the time at which it will be full again
+	 * (the generic cell rate algorithm). Every request moves that time one emission interval into the future,
+	 * and a request is allowed as long as the time stays within the burst tolerance of now.
+	 * </p>
+	 */
+	private static final class TokenBucket {
+
+		private final long emissionInterval; // in nanoseconds
+		private final long burstTolerance; // in nanoseconds
+		private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+		private TokenBucket(long emissionInterval, long burstTolerance) {
+			this.emissionInterval = emissionInterval;
+			this.burstTolerance = burstTolerance;
+		}
+
+		/**
+		 * Takes a token from the bucket if one is available.
+		 *
+		 * @param now the current time in nanoseconds
+		 * @return the number of tokens left if a token was taken, otherwise the negated number of seconds until
+		 *         the next token is available
+		 */
+		private long tryConsume(long now) {
+			while (true) {
+				long current = fullAt.get();
+				long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + emissionInterval;
+				long delay = next - now;
+				if (delay > burstTolerance) {
+					long wait = delay - burstTolerance;
+					return -((wait + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+				}
+				if (fullAt.compareAndSet(current, next)) {
+					return (burstTolerance - delay) / emissionInterval;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Limits of a route.
+	 */
+	public static class Config implements HasRouteId {
+
+		private int replenishRate;
+		private int burstCapacity;
+		private long maxKeys = 100000;
+		private String routeId;
+
+		/**
+		 * Gets the number of requests per second a client may send on average.
+		 *
+		 * @return the replenish rate
+		 */
+		public int getReplenishRate() {
+			return replenishRate;
+		}
+
+		/**
+		 * Sets the number of requests per second a client may send on average.
+		 *
+		 * @param replenishRate the replenish rate
+		 */
+		public void setReplenishRate(int replenishRate) {
+			this.replenishRate = replenishRate;
+		}
+
+		/**
+		 * Gets the number of requests a client may send at once.
+		 *
+		 * @return the burst capacity
+		 */
+		public int getBurstCapacity() {
+			return burstCapacity;
+		}
+
+		/**
+		 * Sets the number of requests a client may send at once.
+		 *
+		 * @param burstCapacity the burst capacity
+		 */
+		public void setBurstCapacity(int burstCapacity) {
+			this.burstCapacity = burstCapacity;
+		}
+
+		/**
+		 * Gets the maximum number of clients tracked on the route.
+		 *
+		 * @return the maximum number of buckets
+		 */
+		public long getMaxKeys() {
+			return maxKeys;
+		}
+
+		/**
+		 * Sets the maximum number of clients tracked on the route.
+		 *
+		 * @param maxKeys the maximum number of buckets
+		 */
+		public void setMaxKeys(long maxKeys) {
+			this.maxKeys = maxKeys;
+		}
+
+		/**
+		 * Gets the ID of the route.
+		 *
+		 * @return the route ID
+		 */
+		@Override
+		public String getRouteId() {
+			return routeId;
+		}
+
+		/**
+		 * Sets the ID of the route.
+		 *
+		 * @param routeId the route ID
+		 */
+		@Override
+		public void setRouteId(String routeId) {
+			this.routeId = routeId;
+		}
+	}
+}
@@ -0,0 +1,525 @@
+package com.example.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Gateway filter factory caching successful GET responses of a route in memory.
+ * <p>
+ * Responses of the configured paths are cached for {@code ttl}, up to {@code maxBytes} in total, keyed by path,
+ * query and {@code Accept} header. Every cached response carries a strong {@code ETag} derived from its body, and a
+ * request whose {@code If-None-Match} matches it is answered with 304 (Not Modified) without a body. The headers
+ * of the response are cached with it, except for hop-by-hop headers, so headers such as the {@code Link} to the
+ * next page are replayed on a hit. Only responses with status 200 (OK) that set no cookie are captured. Their body
+ * is buffered up to {@code maxEntryBytes}, whether or not it announces a length; once a body passes the limit, the
+ * buffered part and the rest are written through without caching. Responses announcing a larger
+ * {@code Content-Length} and responses of a streaming media type
+ * ({@code spring.cloud.gateway.streaming-media-types}) pass through untouched.
+ * </p>
+ * <p>
+ * The filter runs after the {@link RateLimitGatewayFilterFactory rate limit}, so cache hits count against the
+ * limit of the client as well.
+ * </p>
+ * <p>
+ * A successful write (any method other than GET and HEAD) through the route purges the whole cache, except for the
+ * {@code purgeExclusions}, which are read-only POST endpoints. A response whose request started before a purge is
+ * not cached, so a read racing a write cannot store the old state. Writes that bypass this gateway instance become
+ * visible once the cached responses expire. Cache statistics are published under the {@code cache.*} metrics with
+ * the tags {@code cache=gateway-responses} and the route.
+ * </p>
+ * <p>
+ * Only cache responses that are the same for every caller, such as the public product reads.
+ * </p>
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+	private static final String CACHE_NAME = "gateway-responses";
+	private static final String ROUTE_TAG = "route";
+	private static final String CACHE_STATUS_HEADER = "X-Cache";
+	private static final String CACHE_HIT = "HIT";
+	private static final String CACHE_MISS = "MISS";
+	private static final String ANY_ETAG = "*";
+	private static final String WEAK_ETAG_PREFIX = "W/";
+	private static final int ETAG_BYTES = 16;
+	private static final Set<String> UNCACHED_HEADERS = Set.of(HttpHeaders.CONNECTION, "Keep-Alive",
+			HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.TE, HttpHeaders.TRAILER,
+			HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE, HttpHeaders.SET_COOKIE, HttpHeaders.CONTENT_LENGTH,
+			HttpHeaders.DATE, HttpHeaders.ETAG, CACHE_STATUS_HEADER);
+
+	private static final Base64.Encoder ETAG_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	/**
+	 * Order of the caching filter, right before the gateway writes the proxied response.
+	 */
+	public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+	private final MeterRegistry meterRegistry;
+	private final List<MediaType> streamingMediaTypes;
+
+	/**
+	 * Constructs a ResponseCacheGatewayFilterFactory.
+	 *
+	 * @param meterRegistry the registry the cache metrics are published to
+	 * @param gatewayProperties the gateway settings providing the streaming media types
+	 */
+	@Autowired
+	public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry, GatewayProperties gatewayProperties) {
+		super(Config.class);
+		this.meterRegistry = meterRegistry;
+		this.streamingMediaTypes = List.copyOf(gatewayProperties.getStreamingMediaTypes());
+	}
+
+	/**
+	 * Creates the caching filter of a route. Every route has its own cache.
+	 * <p>
+	 * The filter runs before the gateway writes the proxied response, so it can capture the response body, and
+	 * after the rate limit.
+	 * </p>
+	 *
+	 * @param config the cache settings of the route
+	 * @return the filter
+	 */
+	@Override
+	public GatewayFilter apply(Config config) {
+		List<PathPattern> paths = parse(config.getPaths());
+		List<PathPattern> purgeExclusions = parse(config.getPurgeExclusions());
+		long maxEntryBytes = config.getMaxEntryBytes();
+		AtomicLong generation = new AtomicLong();
+		Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+				.maximumWeight(config.getMaxBytes())
+				.weigher((String key, CachedResponse response) -> key.length() + response.getWeight())
+				.expireAfterWrite(config.getTtl())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, ROUTE_TAG, String.valueOf(config.getRouteId()));
+
+		GatewayFilter filter = (exchange, chain) -> {
+			ServerHttpRequest request = exchange.getRequest();
+			PathContainer path = request.getPath().pathWithinApplication();
+			HttpMethod method = request.getMethod();
+
+			if (!HttpMethod.GET.equals(method)) {
+				if (HttpMethod.HEAD.equals(method) || matches(purgeExclusions, path)) {
+					return chain.filter(exchange);
+				}
+				return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+					HttpStatusCode status = exchange.getResponse().getStatusCode();
+					if (status != null && status.is2xxSuccessful()) {
+						generation.incrementAndGet();
+						cache.invalidateAll();
+					}
+				}));
+			}
+			if (!matches(paths, path)) {
+				return chain.filter(exchange);
+			}
+
+			String key = cacheKey(request);
+			List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+			CachedResponse cached = cache.getIfPresent(key);
+			if (cached != null) {
+				return write(exchange.getResponse(), cached, ifNoneMatch, CACHE_HIT);
+			}
+
+			long requestGeneration = generation.get();
+			ServerHttpResponse response = exchange.getResponse();
+			ServerHttpResponseDecorator decorated = new ServerHttpResponseDecorator(response) {
+
+				@Override
+				public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+					HttpStatusCode status = getStatusCode();
+					if (status == null || status.value() != HttpStatus.OK.value() || !isCapturable(getHeaders(), maxEntryBytes)) {
+						return super.writeWith(body);
+					}
+					// Emits the whole body as one list if it stays within the limit, and otherwise a list up to the
+					// buffer passing the limit followed by every further buffer on its own
+					AtomicLong size = new AtomicLong();
+					Flux<List<DataBuffer>> chunks = Flux.<DataBuffer>from(body)
+							.bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxEntryBytes);
+					return chunks.switchOnFirst((first, all) -> {
+						if (!first.hasValue() || size.get() > maxEntryBytes) {
+							return super.writeWith(all.concatMapIterable(buffers -> buffers));
+						}
+						byte[] bytes = read(first.get(), (int) size.get());
+						CachedResponse captured = new CachedResponse(cacheableHeaders(getHeaders()), bytes, etagOf(bytes));
+						if (generation.get() == requestGeneration) {
+							cache.put(key, captured);
+							// A purge in between may have missed the new entry
+							if (generation.get() != requestGeneration) {
+								cache.invalidate(key);
+							}
+						}
+						return all.then(write(getDelegate(), captured, ifNoneMatch, CACHE_MISS));
+					}).then();
+				}
+			};
+			return chain.filter(exchange.mutate().response(decorated).build());
+		};
+		return new OrderedGatewayFilter(filter, ORDER);
+	}
+
+	/**
+	 * Checks whether a response may be captured: it sets no cookie, does not announce a length above the limit
+	 * and is not of a streaming media type.
+	 *
+	 * @param headers the headers of the response
+	 * @param maxEntryBytes the maximum size of a cached response
+	 * @return true if the response body may be buffered and cached, false otherwise
+	 */
+	private boolean isCapturable(HttpHeaders headers, long maxEntryBytes) {
+		long contentLength = headers.getContentLength();
+		if (headers.containsKey(HttpHeaders.SET_COOKIE) || contentLength > maxEntryBytes) {
+			return false;
+		}
+		MediaType contentType = headers.getContentType();
+		if (contentType != null) {
+			for (MediaType streamingMediaType : streamingMediaTypes) {
+				if (streamingMediaType.isCompatibleWith(contentType)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the buffered body of a response and releases its buffers.
+	 *
+	 * @param buffers the buffers of the body
+	 * @param size the total number of bytes in the buffers
+	 * @return the body
+	 */
+	private static byte[] read(List<DataBuffer> buffers, int size) {
+		byte[] bytes = new byte[size];
+		int offset = 0;
+		for (DataBuffer buffer : buffers) {
+			int length = buffer.readableByteCount();
+			buffer.read(bytes, offset, length);
+			offset += length;
+			DataBufferUtils.release(buffer);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Copies the headers of a response that are replayed on a cache hit, leaving out hop-by-hop headers and the
+	 * headers the cache sets itself.
+	 *
+	 * @param headers the headers of the response
+	 * @return the read-only copy of the headers
+	 */
+	private static HttpHeaders cacheableHeaders(HttpHeaders headers) {
+		HttpHeaders cacheable = new HttpHeaders();
+		headers.forEach((name, values) -> {
+			if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+				cacheable.put(name, List.copyOf(values));
+			}
+		});
+		return HttpHeaders.readOnlyHttpHeaders(cacheable);
+	}
+
+	/**
+	 * Writes a cached response, or 304 (Not Modified) if the client already has it.
+	 * Headers already set on the response, such as those of the rate limit, are kept.
+	 *
+	 * @param response the response to write to
+	 * @param cached the cached response
+	 * @param ifNoneMatch the entity tags sent by the client
+	 * @param cacheStatus the value of the {@code X-Cache} header
+	 * @return a Mono<Void> completing the response
+	 */
+	private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached, List<String> ifNoneMatch, String cacheStatus) {
+		HttpHeaders headers = response.getHeaders();
+		headers.setETag(cached.getEtag());
+		headers.set(CACHE_STATUS_HEADER, cacheStatus);
+		if (matchesEtag(ifNoneMatch, cached.getEtag())) {
+			response.setStatusCode(HttpStatus.NOT_MODIFIED);
+			headers.remove(HttpHeaders.CONTENT_LENGTH);
+			headers.remove(HttpHeaders.CONTENT_TYPE);
+			return response.setComplete();
+		}
+		response.setStatusCode(HttpStatus.OK);
+		cached.getHeaders().forEach(headers::putIfAbsent);
+		headers.remove(HttpHeaders.TRANSFER_ENCODING);
+		headers.setContentLength(cached.getBody().length);
+		return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.getBody())));
+	}
+
+	/**
+	 * Builds the cache key of a request from its path, query and accepted media types.
+	 *
+	 * @param request the request
+	 * @return the cache key
+	 */
+	private static String cacheKey(ServerHttpRequest request) {
+		String query = request.getURI().getRawQuery();
+		String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+		return request.getURI().getRawPath() + (query == null ? "" : "?" + query) + " " + (accept == null ? "" : accept);
+	}
+
+	/**
+	 * Checks whether the client already holds the response with the given entity tag.
+	 *
+	 * @param ifNoneMatch the entity tags sent by the client
+	 * @param etag the entity tag of the response
+	 * @return true if one of the tags matches, false otherwise
+	 */
+	private static boolean matchesEtag(List<String> ifNoneMatch, String etag) {
+		for (String candidate : ifNoneMatch) {
+			if (candidate.equals(etag) || candidate.equals(WEAK_ETAG_PREFIX + etag) || candidate.equals(ANY_ETAG)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Derives a strong entity tag from a response body.
+	 *
+	 * @param body the response body
+	 * @return the quoted entity tag
+	 */
+	private static String etagOf(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return "\"" + ETAG_ENCODER.encodeToString(Arrays.copyOf(digest, ETAG_BYTES)) + "\"";
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Checks whether a path matches one of the given patterns.
+	 *
+	 * @param patterns the patterns
+	 * @param path the path
+	 * @return true if a pattern matches, false otherwise
+	 */
+	private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+		for (PathPattern pattern : patterns) {
+			if (pattern.matches(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Parses path patterns such as {@code /products/{id}}.
+	 *
+	 * @param patterns the patterns
+	 * @return the parsed patterns
+	 */
+	private static List<PathPattern> parse(List<String> patterns) {
+		return patterns.stream()
+				.map(String::trim)
+				.map(PathPatternParser.defaultInstance::parse)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Cached headers and body of a successful response.
+	 */
+	private static final class CachedResponse {
+
+		private final HttpHeaders headers;
+		private final byte[] body;
+		private final String etag;
+
+		private CachedResponse(HttpHeaders headers, byte[] body, String etag) {
+			this.headers = headers;
+			this.body = body;
+			this.etag = etag;
+		}
+
+		private HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		private byte[] getBody() {
+			return body;
+		}
+
+		private String getEtag() {
+			return etag;
+		}
+
+		/**
+		 * Estimates the memory held by the response.
+		 *
+		 * @return the approximate size in bytes
+		 */
+		private int getWeight() {
+			int weight = body.length;
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				weight += header.getKey().length();
+				for (String value : header.getValue()) {
+					weight += value.length();
+				}
+			}
+			return weight;
+		}
+	}
+
+	/**
+	 * Cache settings of a route.
+	 */
+	public static class Config implements HasRouteId {
+
+		private Duration ttl = Duration.ofSeconds(30);
+		private long maxBytes = 16 * 1024 * 1024;
+		private long maxEntryBytes = 1024 * 1024;
+		private List<String> paths = new ArrayList<>();
+		private List<String> purgeExclusions = new ArrayList<>();
+		private String routeId;
+
+		/**
+		 * Gets how long responses are cached.
+		 *
+		 * @return the time to live
+		 */
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		/**
+		 * Sets how long responses are cached.
+		 *
+		 * @param ttl the time to live
+		 */
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+		/**
+		 * Gets the maximum total size of the cached responses.
+		 *
+		 * @return the maximum size in bytes
+		 */
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		/**
+		 * Sets the maximum total size of the cached responses.
+		 *
+		 * @param maxBytes the maximum size in bytes
+		 */
+		public void setMaxBytes(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		/**
+		 * Gets the maximum size of a single cached response.
+		 *
+		 * @return the maximum size in bytes
+		 */
+		public long getMaxEntryBytes() {
+			return maxEntryBytes;
+		}
+
+		/**
+		 * Sets the maximum size of a single cached response.
+		 *
+		 * @param maxEntryBytes the maximum size in bytes
+		 */
+		public void setMaxEntryBytes(long maxEntryBytes) {
+			this.maxEntryBytes = maxEntryBytes;
+		}
+
+		/**
+		 * Gets the path patterns whose GET responses are cached.
+		 *
+		 * @return the path patterns
+		 */
+		public List<String> getPaths() {
+			return paths;
+		}
+
+		/**
+		 * Sets the path patterns whose GET responses are cached.
+		 *
+		 * @param paths the path patterns
+		 */
+		public void setPaths(List<String> paths) {
+			this.paths = paths;
+		}
+
+		/**
+		 * Gets the path patterns of requests that do not purge the cache although they are not GET requests.
+		 *
+		 * @return the path patterns
+		 */
+		public List<String> getPurgeExclusions() {
+			return purgeExclusions;
+		}
+
+		/**
+		 * Sets the path patterns of requests that do not purge the cache although they are not GET requests.
+		 *
+		 * @param purgeExclusions the path patterns
+		 */
+		public void setPurgeExclusions(List<String> purgeExclusions) {
+			this.purgeExclusions = purgeExclusions;
+		}
+
+		/**
+		 * Gets the ID of the route.
+		 *
+		 * @return the route ID
+		 */
+		@Override
+		public String getRouteId() {
+			return routeId;
+		}
+
+		/**
+		 * Sets the ID of the route.
+		 *
+		 * @param routeId the route ID
+		 */
+		@Override
+		public void setRouteId(String routeId) {
+			this.routeId = routeId;
+		}
+	}
+}
@@ -1,73 +1,56 @@
 package com.example.gateway.security;
 
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtUtil;
+import com.example.security.reactive.JwtAuthenticationWebFilter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.server.ServerWebExchange;
-import org.springframework.web.server.WebFilter;
-import org.springframework.web.server.WebFilterChain;
-import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Set;
 
 /**
  * Authorization filter that intercepts requests to validate JWT tokens.
+ * <p>
+ * Registration, login, token renewal and the signing keys of the user service are forwarded without
+ * authentication. Identity headers sent by clients are always dropped. When identity propagation is enabled,
+ * the bearer token of an authenticated request is replaced by a signed identity header, so downstream services
+ * do not have to verify the JWT again.
+ * </p>
+ * <p>
+ * With {@code jwt.verification.offload: true} uncached tokens are verified on a bounded scheduler instead of the
+ * Netty event loop. This pays off for RS256, whose signature check is much more expensive than HS256.
+ * </p>
  */
 @Component
-public class AuthorizationFilter implements WebFilter {
+public class AuthorizationFilter extends JwtAuthenticationWebFilter {
+
+	private static final String SCHEDULER_NAME = "jwt-verification";
 
-	private final JwtUtil jwtUtil;
+	private static final Set<String> PUBLIC_PATHS = Set.of(
+			SecurityConstants.USERS_REGISTER_URL,
+			SecurityConstants.USERS_LOGIN_URL,
+			SecurityConstants.USERS_TOKEN_REFRESH_URL,
+			SecurityConstants.USERS_TOKEN_REVOKE_URL,
+			SecurityConstants.USERS_JWKS_URL
+	);
 
 	/**
-	 * Constructs a new AuthorizationFilter with the given JwtUtil.
+	 * Constructs a new AuthorizationFilter with the given JwtUtil and IdentityHeaderCodec.
 	 *
 	 * @param jwtUtil the utility class for JWT operations
+	 * @param identityHeaderCodec the codec for the signed identity header
+	 * @param offload whether uncached tokens are verified on a bounded scheduler
+	 * @param threads the number of threads verifying tokens when offloading
+	 * @param queueCapacity the maximum number of verifications waiting for a thread when offloading
 	 */
 	@Autowired
-	public AuthorizationFilter(JwtUtil jwtUtil) {
-		this.jwtUtil = jwtUtil;
-	}
-
-	/**
-	 * Filters incoming requests to check for valid JWT tokens.
-	 *
-	 * @param exchange the current server exchange
-	 * @param filterChain the web filter chain
-	 * @return a Mono<Void> that indicates filter chain processing
-	 */
-	@Override
-	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain filterChain) {
-		String path = exchange.getRequest().getURI().getPath();
-
-		if (path.equals(SecurityConstants.USERS_REGISTER_URL) || path.equals(SecurityConstants.USERS_LOGIN_URL)) {
-			// Permit these paths without authentication
-			return filterChain.filter(exchange);
-		}
-
-		String token = resolveToken(exchange);
-
-		try {
-			if (token == null || !jwtUtil.validateToken(token)) {
-				exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-				return exchange.getResponse().setComplete();
-			}
-		} catch (RuntimeException e) {
-			exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-			return exchange.getResponse().setComplete();
-		}
-
-		return filterChain.filter(exchange);
-	}
-
-	/**
-	 * Resolves the JWT token from the request headers.
-	 *
-	 * @param exchange the current server exchange
-	 * @return the JWT token if present, otherwise null
-	 */
-	private String resolveToken(ServerWebExchange exchange) {
-		String bearerToken = exchange.getRequest().getHeaders().getFirst(SecurityConstants.JWT_HEADER_STRING);
-		if (bearerToken != null && bearerToken.startsWith(SecurityConstants.JWT_TOKEN_PREFIX)) {
-			return bearerToken.substring(SecurityConstants.JWT_TOKEN_PREFIX.length());
-		}
-		return null;
+	public AuthorizationFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec,
+			@Value("${jwt.verification.offload:false}") boolean offload,
+			@Value("${jwt.verification.threads:4}") int threads,
+			@Value("${jwt.verification.queue-capacity:1000}") int queueCapacity) {
+		super(jwtUtil, identityHeaderCodec, PUBLIC_PATHS,
+				offload ? Schedulers.newBoundedElastic(threads, queueCapacity, SCHEDULER_NAME) : null);
 	}
 }
@@ -1,7 +1,12 @@
 package com.example.gateway.security;
 
+import com.example.security.CommonSecurityConstants;
+
 /**
  * Constants used for security configuration.
+ * <p>
+ * The values shared by all services are defined in {@link CommonSecurityConstants}.
+ * </p>
  */
 public final class SecurityConstants
 {
@@ -10,12 +15,17 @@ public final class SecurityConstants
 	/**
 	 * Prefix for the JWT token.
 	 */
-	public static final String JWT_TOKEN_PREFIX = "Bearer ";
+	public static final String JWT_TOKEN_PREFIX = CommonSecurityConstants.JWT_TOKEN_PREFIX;
 
 	/**
 	 * Header string for the JWT token.
 	 */
-	public static final String JWT_HEADER_STRING = "Authorization";
+	public static final String JWT_HEADER_STRING = CommonSecurityConstants.JWT_HEADER_STRING;
+
+	/**
+	 * Header string for the signed identity propagated to the downstream services.
+	 */
+	public static final String IDENTITY_HEADER_STRING = CommonSecurityConstants.IDENTITY_HEADER_STRING;
 
 	// URL patterns
 	/**
@@ -23,6 +33,9 @@ public final class SecurityConstants
 	 */
 	public static final String USERS_REGISTER_URL = "/users/register";
 	public static final String USERS_LOGIN_URL = "/users/login";
+	public static final String USERS_TOKEN_REFRESH_URL = "/users/token/refresh";
+	public static final String USERS_TOKEN_REVOKE_URL = "/users/token/revoke";
+	public static final String USERS_JWKS_URL = "/users/.well-known/jwks.json";
 
 	/**
 	 * Private constructor to prevent instantiation.
@@ -0,0 +1,205 @@
+package com.example.gateway.filter;
+
+import com.example.security.JwtPrincipal;
+import com.example.security.reactive.JwtAuthenticationWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the {@link RateLimitGatewayFilterFactory}, driven by a controllable clock.
+ */
+public class RateLimitGatewayFilterFactoryTest {
+
+	private static final String ROUTE_ID = "orders";
+	private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+	private static final String PROXY_ADDRESS = "10.0.0.100";
+
+	private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	private final AtomicInteger forwarded = new AtomicInteger();
+	private MeterRegistry meterRegistry;
+	private GatewayFilter filter;
+
+	/**
+	 * Sets up a route allowing bursts of three requests, refilled with one request per second, without proxies.
+	 */
+	@BeforeEach
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		filter = createFilter(0);
+	}
+
+	/**
+	 * Tests that a burst up to the capacity is allowed and further requests are rejected with 429.
+	 */
+	@Test
+	public void requestsBeyondTheBurstAreRejected() {
+		assertEquals("2", filterAs("testuser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals("1", filterAs("testuser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals("0", filterAs("testuser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+
+		MockServerWebExchange rejected = filterAs("testuser");
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+		assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertNull(rejected.getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals(3, forwarded.get());
+		assertEquals(1.0, meterRegistry.get("gateway.ratelimit.rejected").tag("route", ROUTE_ID).counter().count());
+	}
+
+	/**
+	 * Tests that the bucket refills with the replenish rate, up to the burst capacity.
+	 */
+	@Test
+	public void bucketsRefillOverTime() {
+		for (int i = 0; i < 3; i++) {
+			filterAs("testuser");
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterAs("testuser").getResponse().getStatusCode());
+
+		advance(1000L);
+		assertEquals("0", filterAs("testuser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterAs("testuser").getResponse().getStatusCode());
+
+		advance(60000L);
+		assertEquals("2", filterAs("testuser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+	}
+
+	/**
+	 * Tests that every user and every anonymous IP address has its own bucket.
+	 */
+	@Test
+	public void clientsHaveSeparateBuckets() {
+		for (int i = 0; i < 3; i++) {
+			filterAs("testuser");
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterAs("testuser").getResponse().getStatusCode());
+
+		assertEquals("2", filterAs("otheruser").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals("2", filterFrom("10.0.0.1").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals("1", filterFrom("10.0.0.1").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+		assertEquals("2", filterFrom("10.0.0.2").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+	}
+
+	/**
+	 * Tests that anonymous clients behind a trusted proxy are identified by the address the proxy appended to
+	 * {@code X-Forwarded-For}, ignoring addresses forged by the client.
+	 */
+	@Test
+	public void anonymousClientsBehindTrustedProxiesHaveSeparateBuckets() {
+		filter = createFilter(1);
+		for (int i = 0; i < 3; i++) {
+			filterForwardedFor("203.0.113.1");
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterForwardedFor("203.0.113.1").getResponse().getStatusCode());
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterForwardedFor("198.51.100.7, 203.0.113.1").getResponse().getStatusCode());
+
+		assertEquals("2", filterForwardedFor("203.0.113.2").getResponse().getHeaders().getFirst(REMAINING_HEADER));
+	}
+
+	/**
+	 * Tests that limits must be positive.
+	 */
+	@Test
+	public void limitsMustBePositive() {
+		RateLimitGatewayFilterFactory factory = new RateLimitGatewayFilterFactory(meterRegistry, 0, clock::get);
+		RateLimitGatewayFilterFactory.Config config = new RateLimitGatewayFilterFactory.Config();
+		config.setReplenishRate(0);
+		config.setBurstCapacity(3);
+
+		assertThrows(IllegalStateException.class, () -> factory.apply(config));
+	}
+
+	/**
+	 * Creates a filter allowing bursts of three requests, refilled with one request per second.
+	 *
+	 * @param trustedProxies the number of trusted proxies in front of the gateway
+	 * @return the filter
+	 */
+	private GatewayFilter createFilter(int trustedProxies) {
+		RateLimitGatewayFilterFactory factory = new RateLimitGatewayFilterFactory(meterRegistry, trustedProxies, clock::get);
+		RateLimitGatewayFilterFactory.Config config = new RateLimitGatewayFilterFactory.Config();
+		config.setReplenishRate(1);
+		config.setBurstCapacity(3);
+		config.setRouteId(ROUTE_ID);
+		return factory.apply(config);
+	}
+
+	/**
+	 * Sends an anonymous request through a proxy, which appends the given addresses to {@code X-Forwarded-For}.
+	 *
+	 * @param forwardedFor the {@code X-Forwarded-For} header as received from the proxy
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange filterForwardedFor(String forwardedFor) {
+		return filter(MockServerWebExchange.from(MockServerHttpRequest.post("/users/login")
+				.remoteAddress(new InetSocketAddress(PROXY_ADDRESS, 40000))
+				.header("X-Forwarded-For", forwardedFor)));
+	}
+
+	/**
+	 * Sends a request authenticated as the given user through the filter.
+	 *
+	 * @param username the username of the authenticated principal
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange filterAs(String username) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+		exchange.getAttributes().put(JwtAuthenticationWebFilter.PRINCIPAL_ATTRIBUTE,
+				new JwtPrincipal(username, List.of("USER"), Instant.now().plus(1, ChronoUnit.HOURS)));
+		return filter(exchange);
+	}
+
+	/**
+	 * Sends an anonymous request from the given IP address through the filter.
+	 *
+	 * @param address the IP address of the client
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange filterFrom(String address) {
+		return filter(MockServerWebExchange.from(MockServerHttpRequest.post("/users/login")
+				.remoteAddress(new InetSocketAddress(address, 40000))));
+	}
+
+	/**
+	 * Sends the given exchange through the filter.
+	 *
+	 * @param exchange the exchange
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange filter(MockServerWebExchange exchange) {
+		filter.filter(exchange, forwardedExchange -> {
+			forwarded.incrementAndGet();
+			return Mono.empty();
+		}).block();
+		return exchange;
+	}
+
+	/**
+	 * Advances the clock.
+	 *
+	 * @param millis the milliseconds to advance the clock by
+	 */
+	private void advance(long millis) {
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+}
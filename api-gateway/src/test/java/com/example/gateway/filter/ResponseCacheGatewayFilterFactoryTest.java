@@ -0,0 +1,243 @@
+package com.example.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link ResponseCacheGatewayFilterFactory}, with a filter chain standing in for the proxied
+ * product service.
+ */
+public class ResponseCacheGatewayFilterFactoryTest {
+
+	private static final String BODY = "[{\"id\":1,\"name\":\"Laptop\"}]";
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	private static final long MAX_ENTRY_BYTES = 64;
+
+	private final AtomicInteger proxied = new AtomicInteger();
+	private GatewayFilter filter;
+
+	/**
+	 * Sets up a cache for the product paths, treating NDJSON as a streaming media type.
+	 */
+	@BeforeEach
+	public void setUp() {
+		GatewayProperties gatewayProperties = new GatewayProperties();
+		gatewayProperties.setStreamingMediaTypes(List.of(MediaType.TEXT_EVENT_STREAM, NDJSON));
+		ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(new SimpleMeterRegistry(), gatewayProperties);
+		ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+		config.setPaths(List.of("/products", "/products/{id}"));
+		config.setPurgeExclusions(List.of("/products/batch"));
+		config.setMaxEntryBytes(MAX_ENTRY_BYTES);
+		config.setRouteId("product-service");
+		filter = factory.apply(config);
+	}
+
+	/**
+	 * Tests that a cacheable response is served from the cache and revalidated with its ETag.
+	 */
+	@Test
+	public void responsesAreCachedWithEtag() {
+		MockServerWebExchange miss = get("/products", respond(MediaType.APPLICATION_JSON, BODY, true));
+		assertEquals("MISS", miss.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(BODY, miss.getResponse().getBodyAsString().block());
+		String etag = miss.getResponse().getHeaders().getETag();
+		assertNotNull(etag);
+
+		MockServerWebExchange hit = get("/products", respond(MediaType.APPLICATION_JSON, BODY, true));
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(BODY, hit.getResponse().getBodyAsString().block());
+		assertEquals(1, proxied.get());
+
+		MockServerWebExchange revalidated = filter(MockServerWebExchange.from(MockServerHttpRequest.get("/products")
+				.ifNoneMatch(etag)), respond(MediaType.APPLICATION_JSON, BODY, true));
+		assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getResponse().getStatusCode());
+		assertEquals(1, proxied.get());
+	}
+
+	/**
+	 * Tests that responses of a streaming media type pass through without being captured.
+	 */
+	@Test
+	public void streamingResponsesAreNotCached() {
+		MockServerWebExchange streamed = get("/products", respond(NDJSON, BODY, true));
+		assertNull(streamed.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(BODY, streamed.getResponse().getBodyAsString().block());
+
+		get("/products", respond(NDJSON, BODY, true));
+		assertEquals(2, proxied.get());
+	}
+
+	/**
+	 * Tests that responses without a length are buffered and cached, and served with their length on a hit.
+	 */
+	@Test
+	public void chunkedResponsesWithinTheLimitAreCached() {
+		MockServerWebExchange miss = get("/products/1", respond(MediaType.APPLICATION_JSON, BODY, false));
+		assertEquals("MISS", miss.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(BODY, miss.getResponse().getBodyAsString().block());
+
+		MockServerWebExchange hit = get("/products/1", respond(MediaType.APPLICATION_JSON, BODY, false));
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(BODY, hit.getResponse().getBodyAsString().block());
+		assertEquals(BODY.length(), hit.getResponse().getHeaders().getContentLength());
+		assertNull(hit.getResponse().getHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING));
+		assertEquals(1, proxied.get());
+	}
+
+	/**
+	 * Tests that responses announcing a length above the limit, or whose body turns out to exceed it, are written
+	 * in full without being cached.
+	 */
+	@Test
+	public void responsesAboveTheLimitAreNotCached() {
+		String large = "x".repeat((int) MAX_ENTRY_BYTES + 1);
+		MockServerWebExchange tooLarge = get("/products/2", respond(MediaType.APPLICATION_JSON, large, true));
+		assertNull(tooLarge.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(large, tooLarge.getResponse().getBodyAsString().block());
+
+		String chunkedLarge = "y".repeat((int) MAX_ENTRY_BYTES);
+		GatewayFilterChain twoChunks = exchange -> {
+			proxied.incrementAndGet();
+			ServerHttpResponse response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			return response.writeWith(Flux.just(chunkedLarge, chunkedLarge).map(chunk ->
+					response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+		};
+		for (int i = 0; i < 2; i++) {
+			MockServerWebExchange passedThrough = get("/products", twoChunks);
+			assertNull(passedThrough.getResponse().getHeaders().getFirst("X-Cache"));
+			assertEquals(chunkedLarge + chunkedLarge, passedThrough.getResponse().getBodyAsString().block());
+		}
+		assertEquals(3, proxied.get());
+	}
+
+	/**
+	 * Tests that the headers of a cached response, such as the link to the next page, are replayed on a hit.
+	 */
+	@Test
+	public void responseHeadersAreReplayed() {
+		String link = "</products?after=2&limit=2>; rel=\"next\"";
+		GatewayFilterChain paged = exchange -> {
+			exchange.getResponse().getHeaders().set(HttpHeaders.LINK, link);
+			return respond(MediaType.APPLICATION_JSON, BODY, true).filter(exchange);
+		};
+		get("/products?limit=2", paged);
+
+		MockServerWebExchange hit = get("/products?limit=2", paged);
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst("X-Cache"));
+		assertEquals(link, hit.getResponse().getHeaders().getFirst(HttpHeaders.LINK));
+		assertEquals(MediaType.APPLICATION_JSON, hit.getResponse().getHeaders().getContentType());
+		assertEquals(1, proxied.get());
+	}
+
+	/**
+	 * Tests that a response whose request started before a purge is not cached.
+	 */
+	@Test
+	public void responsesRacingAPurgeAreNotCached() {
+		GatewayFilterChain racing = exchange -> {
+			filter(MockServerWebExchange.from(MockServerHttpRequest.post("/products")), respond(MediaType.APPLICATION_JSON, BODY, true));
+			return respond(MediaType.APPLICATION_JSON, BODY, true).filter(exchange);
+		};
+		assertEquals("MISS", get("/products", racing).getResponse().getHeaders().getFirst("X-Cache"));
+
+		assertEquals("MISS", get("/products", respond(MediaType.APPLICATION_JSON, BODY, true)).getResponse().getHeaders().getFirst("X-Cache"));
+	}
+
+	/**
+	 * Tests that a successful write purges the cache, except for read-only POST endpoints.
+	 */
+	@Test
+	public void writesPurgeTheCache() {
+		get("/products", respond(MediaType.APPLICATION_JSON, BODY, true));
+
+		filter(MockServerWebExchange.from(MockServerHttpRequest.post("/products/batch")), respond(MediaType.APPLICATION_JSON, BODY, true));
+		assertEquals("HIT", get("/products", respond(MediaType.APPLICATION_JSON, BODY, true)).getResponse().getHeaders().getFirst("X-Cache"));
+
+		filter(MockServerWebExchange.from(MockServerHttpRequest.post("/products")), respond(MediaType.APPLICATION_JSON, BODY, true));
+		assertEquals("MISS", get("/products", respond(MediaType.APPLICATION_JSON, BODY, true)).getResponse().getHeaders().getFirst("X-Cache"));
+	}
+
+	/**
+	 * Tests that the rate limit runs before the cache, so cache hits are rate limited too.
+	 */
+	@Test
+	public void rateLimitRunsBeforeTheCache() {
+		RateLimitGatewayFilterFactory.Config config = new RateLimitGatewayFilterFactory.Config();
+		config.setReplenishRate(1);
+		config.setBurstCapacity(1);
+		GatewayFilter rateLimit = new RateLimitGatewayFilterFactory(new SimpleMeterRegistry(), 0).apply(config);
+
+		assertTrue(((Ordered) rateLimit).getOrder() < ((Ordered) filter).getOrder());
+	}
+
+	/**
+	 * Sends a GET request through the cache.
+	 *
+	 * @param path the request path
+	 * @param chain the proxied service
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange get(String path, GatewayFilterChain chain) {
+		return filter(MockServerWebExchange.from(MockServerHttpRequest.get(path)), chain);
+	}
+
+	/**
+	 * Sends the given exchange through the cache.
+	 *
+	 * @param exchange the exchange
+	 * @param chain the proxied service
+	 * @return the filtered exchange
+	 */
+	private MockServerWebExchange filter(MockServerWebExchange exchange, GatewayFilterChain chain) {
+		filter.filter(exchange, chain).block();
+		return exchange;
+	}
+
+	/**
+	 * Creates a proxied service answering with 200 (OK) and the given body.
+	 *
+	 * @param contentType the content type of the response
+	 * @param body the response body
+	 * @param withLength whether the response announces its length
+	 * @return the proxied service
+	 */
+	private GatewayFilterChain respond(MediaType contentType, String body, boolean withLength) {
+		return exchange -> {
+			proxied.incrementAndGet();
+			ServerHttpResponse response = exchange.getResponse();
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().setContentType(contentType);
+			if (withLength) {
+				response.getHeaders().setContentLength(bytes.length);
+			} else {
+				response.getHeaders().set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+			}
+			return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(bytes)));
+		};
+	}
+}
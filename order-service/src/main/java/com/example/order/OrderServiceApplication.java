@@ -1,10 +1,14 @@
 package com.example.order;
 
+import org.apache.hc.client5.http.classic.HttpClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -12,6 +16,7 @@ import org.springframework.web.client.RestTemplate;
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class OrderServiceApplication {
 
 	/**
@@ -25,12 +30,18 @@ public class OrderServiceApplication {
 
 	/**
 	 * Creates a LoadBalanced RestTemplate bean.
+	 * Requests are sent through the pooled HTTP client, which keeps connections to the product service alive
+	 * and bounds connecting to and reading from it by timeouts.
 	 *
+	 * @param builder the builder provided by Spring Boot
+	 * @param httpClient the pooled HTTP client
 	 * @return a RestTemplate instance
 	 */
 	@Bean
 	@LoadBalanced
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	public RestTemplate restTemplate(RestTemplateBuilder builder, HttpClient httpClient) {
+		return builder
+				.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+				.build();
 	}
 }
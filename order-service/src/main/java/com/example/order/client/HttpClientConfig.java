@@ -0,0 +1,77 @@
+package com.example.order.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the pooled HTTP client used for calls to other services.
+ * <p>
+ * Connections are kept alive and reused across requests, so an order does not pay for a TCP handshake per
+ * product lookup. The pool is bounded in total and per route, i.e. per product service instance resolved by the
+ * load balancer. Connections idle for longer than {@code idle-timeout-ms} or older than {@code time-to-live-ms}
+ * are closed by a background thread of the client. Pool utilization is published under the
+ * {@code httpcomponents.httpclient.pool.*} metrics with the tag {@code httpclient=product-service}.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class HttpClientConfig {
+
+	private static final String POOL_NAME = "product-service";
+
+	/**
+	 * Creates the pooled HTTP client.
+	 *
+	 * @param maxConnections the maximum number of open connections
+	 * @param maxConnectionsPerRoute the maximum number of open connections to a single service instance
+	 * @param idleTimeoutMillis how long an unused connection is kept open in milliseconds
+	 * @param timeToLiveMillis the maximum lifetime of a connection in milliseconds
+	 * @param validateAfterInactivityMillis the idle time after which a pooled connection is checked before reuse in milliseconds
+	 * @param connectTimeoutMillis the connect timeout in milliseconds, also the maximum wait for a pooled connection
+	 * @param readTimeoutMillis the read timeout in milliseconds
+	 * @param meterRegistry the registry the pool metrics are published to
+	 * @return the HTTP client, closed with the application context
+	 */
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient httpClient(
+			@Value("${product-client.pool.max-connections:200}") int maxConnections,
+			@Value("${product-client.pool.max-connections-per-route:50}") int maxConnectionsPerRoute,
+			@Value("${product-client.pool.idle-timeout-ms:30000}") long idleTimeoutMillis,
+			@Value("${product-client.pool.time-to-live-ms:300000}") long timeToLiveMillis,
+			@Value("${product-client.pool.validate-after-inactivity-ms:2000}") long validateAfterInactivityMillis,
+			@Value("${product-client.connect-timeout-ms:1000}") long connectTimeoutMillis,
+			@Value("${product-client.read-timeout-ms:3000}") long readTimeoutMillis,
+			MeterRegistry meterRegistry) {
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnectionsPerRoute)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+						.setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+						.setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMillis))
+						.setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMillis))
+						.build())
+				.build();
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+						.setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMillis))
+				.build();
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.order.client;
+
+import com.example.order.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of product lookups.
+ * <p>
+ * Entries are keyed by product ID and hold either the product or an empty Optional when the product
+ * does not exist. The cache is size-bounded, entries expire after a fixed TTL and products are
+ * invalidated when the product service pushes its changes. Hit, miss and eviction counters are published
+ * under the {@code cache.*} metrics with the tag {@code cache=products}.
+ * </p>
+ * <p>
+ * Every invalidation advances a generation counter. A lookup reads the generation before it calls the
+ * product service and hands it back when caching the result; if an invalidation happened in between,
+ * the result may predate the change and is dropped again instead of being cached until the TTL expires.
+ * </p>
+ */
+@Component
+public class ProductCache {
+
+	private static final String CACHE_NAME = "products";
+
+	private final Cache<Long, Optional<Product>> cache;
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Constructs a ProductCache.
+	 *
+	 * @param maxSize the maximum number of cached products
+	 * @param ttlMillis the time after which a cached entry expires, in milliseconds
+	 * @param meterRegistry the registry the cache metrics are published to
+	 */
+	@Autowired
+	public ProductCache(@Value("${product-cache.max-size:10000}") long maxSize,
+			@Value("${product-cache.ttl-ms:60000}") long ttlMillis,
+			MeterRegistry meterRegistry) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofMillis(ttlMillis))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Returns the cached entries for the given product IDs.
+	 *
+	 * @param productIds the product IDs to look up
+	 * @return the cached entries keyed by product ID; an empty Optional marks a product known not to exist
+	 */
+	public Map<Long, Optional<Product>> getAllPresent(Collection<Long> productIds) {
+		return cache.getAllPresent(productIds);
+	}
+
+	/**
+	 * Returns the current invalidation generation, to be read before looking up products that are cached afterwards.
+	 *
+	 * @return the number of invalidations so far
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Caches the result of a product lookup, including negative entries for products that were not found.
+	 * The result is not kept if any product was invalidated since the given generation.
+	 *
+	 * @param requestedIds the product IDs that were looked up
+	 * @param foundProducts the products that were found, keyed by ID
+	 * @param lookupGeneration the {@link #generation()} read before the lookup started
+	 */
+	public void putAll(Collection<Long> requestedIds, Map<Long, Product> foundProducts, long lookupGeneration) {
+		if (generation.get() != lookupGeneration) {
+			return;
+		}
+		for (Long productId : requestedIds) {
+			cache.put(productId, Optional.ofNullable(foundProducts.get(productId)));
+		}
+		// an invalidation that raced the puts above may have run before them, so undo them
+		if (generation.get() != lookupGeneration) {
+			cache.invalidateAll(requestedIds);
+		}
+	}
+
+	/**
+	 * Removes the cached entry of a product.
+	 *
+	 * @param productId the ID of the product that changed
+	 */
+	public void invalidate(Long productId) {
+		generation.incrementAndGet();
+		cache.invalidate(productId);
+	}
+
+	/**
+	 * Removes the cached entries of several products.
+	 *
+	 * @param productIds the IDs of the products that changed
+	 */
+	public void invalidateAll(Collection<Long> productIds) {
+		generation.incrementAndGet();
+		cache.invalidateAll(productIds);
+	}
+
+	/**
+	 * Removes all cached entries.
+	 */
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+}
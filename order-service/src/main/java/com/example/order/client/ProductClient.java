@@ -0,0 +1,217 @@
+package com.example.order.client;
+
+import com.example.order.exception.ProductServiceUnavailableException;
+import com.example.order.model.Product;
+import com.example.order.security.SecurityConstants;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client for looking up products in the product service.
+ * <p>
+ * Product IDs are deduplicated and first resolved from the {@link ProductCache}. The remaining IDs
+ * are split into batches that are fetched concurrently on a shared, bounded executor. Each lookup runs at
+ * most {@code maxConcurrency} batches in parallel and has to finish within an overall deadline. Every batch
+ * request is guarded by the {@link ProductServiceResilience}.
+ * </p>
+ * <p>
+ * A saturated executor rejects new lookups instead of running them on the request thread, and batches are no
+ * longer started once the deadline has passed. A batch request already in flight cannot be interrupted; it is
+ * bounded by the connect and read timeouts of the RestTemplate, which have to stay below the deadline.
+ * </p>
+ */
+@Component
+public class ProductClient {
+
+	private final RestTemplate restTemplate;
+	private final ProductCache productCache;
+	private final ProductServiceResilience resilience;
+	private final ExecutorService executor;
+	private final int batchSize;
+	private final int maxConcurrency;
+	private final long timeoutMillis;
+
+	/**
+	 * Constructs a ProductClient.
+	 *
+	 * @param restTemplate the load balanced RestTemplate used to call the product service
+	 * @param productCache the cache of previous product lookups
+	 * @param resilience the bulkhead, circuit breaker and retries guarding every batch request
+	 * @param threads the number of threads shared by all lookups
+	 * @param queueCapacity the maximum number of queued batch lookups; when full, new lookups fail with a
+	 *        {@link ProductServiceUnavailableException}
+	 * @param batchSize the maximum number of product IDs per batch request
+	 * @param maxConcurrency the maximum number of batch requests in flight for a single lookup
+	 * @param timeoutMillis the overall deadline of a single lookup in milliseconds
+	 */
+	@Autowired
+	public ProductClient(RestTemplate restTemplate, ProductCache productCache, ProductServiceResilience resilience,
+			@Value("${product-client.executor.threads:16}") int threads,
+			@Value("${product-client.executor.queue-capacity:200}") int queueCapacity,
+			@Value("${product-client.batch-size:100}") int batchSize,
+			@Value("${product-client.max-concurrency:4}") int maxConcurrency,
+			@Value("${product-client.timeout-ms:5000}") long timeoutMillis) {
+		this.restTemplate = restTemplate;
+		this.productCache = productCache;
+		this.resilience = resilience;
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory("product-lookup-"), new ThreadPoolExecutor.AbortPolicy());
+		this.batchSize = batchSize;
+		this.maxConcurrency = maxConcurrency;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Shuts down the lookup executor.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Looks up all products with the given IDs.
+	 *
+	 * @param productIds the IDs of the products to look up; duplicates are ignored
+	 * @param credentials the credential headers forwarded to the product service
+	 * @return the found products keyed by their ID; IDs without a matching product are absent
+	 * @throws ProductServiceUnavailableException if the product service fails or the deadline is exceeded
+	 */
+	public Map<Long, Product> findAllById(Collection<Long> productIds, HttpHeaders credentials) {
+		Set<Long> distinctIds = new LinkedHashSet<>(productIds);
+		Map<Long, Product> products = new HashMap<>();
+		long cacheGeneration = productCache.generation();
+
+		productCache.getAllPresent(distinctIds).forEach((productId, product) -> {
+			distinctIds.remove(productId);
+			product.ifPresent(value -> products.put(productId, value));
+		});
+
+		if (!distinctIds.isEmpty()) {
+			Map<Long, Product> fetched = fetchAll(new ArrayList<>(distinctIds), credentials);
+			productCache.putAll(distinctIds, fetched, cacheGeneration);
+			products.putAll(fetched);
+		}
+		return products;
+	}
+
+	/**
+	 * Fetches the given products from the product service in concurrent batches.
+	 *
+	 * @param productIds the distinct IDs of the products to fetch
+	 * @param credentials the credential headers forwarded to the product service
+	 * @return the found products keyed by their ID
+	 * @throws ProductServiceUnavailableException if the executor is saturated, a batch fails or the deadline is exceeded
+	 */
+	private Map<Long, Product> fetchAll(List<Long> productIds, HttpHeaders credentials) {
+		Queue<List<Long>> batches = new ConcurrentLinkedQueue<>();
+		for (int from = 0; from < productIds.size(); from += batchSize) {
+			batches.add(productIds.subList(from, Math.min(from + batchSize, productIds.size())));
+		}
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.addAll(credentials);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		Map<Long, Product> products = new ConcurrentHashMap<>();
+		int workers = Math.min(maxConcurrency, batches.size());
+		List<Future<?>> futures = new ArrayList<>(workers);
+		try {
+			for (int i = 0; i < workers; i++) {
+				futures.add(executor.submit(() -> {
+					List<Long> batch;
+					while (System.nanoTime() - deadline < 0 && (batch = batches.poll()) != null) {
+						for (Product product : fetchBatch(batch, headers, deadline)) {
+							products.put(product.getId(), product);
+						}
+					}
+				}));
+			}
+		} catch (RejectedExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw new ProductServiceUnavailableException("Too many concurrent product lookups", e);
+		}
+
+		awaitAll(futures, deadline);
+		if (!batches.isEmpty()) {
+			throw new ProductServiceUnavailableException("Product lookup timed out");
+		}
+		return products;
+	}
+
+	/**
+	 * Fetches a single batch of products from the product service.
+	 * The batch lookup is a read, so it is retried on transient failures.
+	 *
+	 * @param batch the product IDs of the batch
+	 * @param headers the headers sent with the request
+	 * @param deadline the {@link System#nanoTime()} after which the batch is no longer retried
+	 * @return the found products
+	 */
+	private Product[] fetchBatch(List<Long> batch, HttpHeaders headers, long deadline) {
+		ResponseEntity<Product[]> response = resilience.read(() -> restTemplate.exchange(
+				SecurityConstants.PRODUCT_SERVICE_BATCH_URL,
+				HttpMethod.POST,
+				new HttpEntity<>(batch, headers),
+				Product[].class
+		), deadline);
+
+		if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+			throw new IllegalStateException("Unexpected product service response: " + response.getStatusCode());
+		}
+		return response.getBody();
+	}
+
+	/**
+	 * Waits for all batch lookups to finish within the overall deadline.
+	 * Remaining lookups are cancelled as soon as one of them fails or the deadline passes.
+	 *
+	 * @param futures the pending batch lookups
+	 * @param deadline the {@link System#nanoTime()} by which all lookups have to be finished
+	 * @throws ProductServiceUnavailableException if a lookup fails or the deadline is exceeded
+	 */
+	private void awaitAll(List<Future<?>> futures, long deadline) {
+		try {
+			for (Future<?> future : futures) {
+				future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			}
+		} catch (TimeoutException e) {
+			throw new ProductServiceUnavailableException("Product lookup timed out", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ProductServiceUnavailableException unavailable) {
+				throw unavailable;
+			}
+			throw new ProductServiceUnavailableException("Product lookup failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProductServiceUnavailableException("Product lookup interrupted", e);
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.example.order.client;
+
+import com.example.order.exception.ProductServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to the product service with a bulkhead, a circuit breaker and retries.
+ * <p>
+ * The bulkhead limits the number of concurrent calls, so a slow product service cannot tie up every request
+ * thread. The circuit breaker opens when too many calls fail or are slow and then rejects calls immediately
+ * until the product service has had time to recover. Failed reads are retried with jittered exponential backoff
+ * if the product service could not be reached or answered 502, 503 or 504; rejections by the bulkhead or the
+ * open circuit breaker and 4xx responses are not retried. Only idempotent reads may be guarded.
+ * </p>
+ * <p>
+ * The bulkhead sits inside the circuit breaker, so rejections by a full bulkhead are ignored by the circuit
+ * breaker: local overload does not open the circuit for a healthy product service. A read is given the deadline of
+ * the lookup it belongs to, and no attempt is started once the deadline has passed, so retries never outlast it
+ * by more than one read timeout.
+ * </p>
+ * <p>
+ * State and call outcomes are published under the {@code resilience4j.*} metrics with the tag
+ * {@code name=product-service}.
+ * </p>
+ */
+@Component
+public class ProductServiceResilience {
+
+	private static final String NAME = "product-service";
+	private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+			HttpStatus.BAD_GATEWAY.value(), HttpStatus.SERVICE_UNAVAILABLE.value(), HttpStatus.GATEWAY_TIMEOUT.value());
+
+	private final Bulkhead bulkhead;
+	private final CircuitBreaker circuitBreaker;
+	private final Retry retry;
+
+	/**
+	 * Constructs a ProductServiceResilience.
+	 *
+	 * @param maxConcurrentCalls the maximum number of concurrent calls to the product service
+	 * @param maxWaitMillis how long a call waits for a free slot in the bulkhead in milliseconds
+	 * @param failureRateThreshold the percentage of failed calls that opens the circuit breaker
+	 * @param slowCallRateThreshold the percentage of slow calls that opens the circuit breaker
+	 * @param slowCallDurationMillis the duration above which a call counts as slow in milliseconds
+	 * @param slidingWindowSize the number of recent calls the failure rates are computed from
+	 * @param minimumNumberOfCalls the minimum number of calls before the failure rates are evaluated
+	 * @param waitInOpenStateMillis how long the circuit breaker stays open before probing again in milliseconds
+	 * @param permittedCallsInHalfOpenState the number of probe calls while half open
+	 * @param maxAttempts the maximum number of attempts per call, including the first one
+	 * @param initialIntervalMillis the backoff before the first retry in milliseconds
+	 * @param multiplier the factor the backoff grows by with each retry
+	 * @param randomizationFactor the relative jitter applied to each backoff
+	 * @param meterRegistry the registry the metrics are published to
+	 */
+	@Autowired
+	public ProductServiceResilience(
+			@Value("${product-client.bulkhead.max-concurrent-calls:16}") int maxConcurrentCalls,
+			@Value("${product-client.bulkhead.max-wait-ms:200}") long maxWaitMillis,
+			@Value("${product-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+			@Value("${product-client.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+			@Value("${product-client.circuit-breaker.slow-call-duration-ms:2000}") long slowCallDurationMillis,
+			@Value("${product-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+			@Value("${product-client.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+			@Value("${product-client.circuit-breaker.wait-in-open-state-ms:10000}") long waitInOpenStateMillis,
+			@Value("${product-client.circuit-breaker.permitted-calls-in-half-open-state:3}") int permittedCallsInHalfOpenState,
+			@Value("${product-client.retry.max-attempts:3}") int maxAttempts,
+			@Value("${product-client.retry.initial-interval-ms:100}") long initialIntervalMillis,
+			@Value("${product-client.retry.multiplier:2}") double multiplier,
+			@Value("${product-client.retry.randomization-factor:0.5}") double randomizationFactor,
+			MeterRegistry meterRegistry) {
+		BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+				.maxConcurrentCalls(maxConcurrentCalls)
+				.maxWaitDuration(Duration.ofMillis(maxWaitMillis))
+				.build());
+		CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.failureRateThreshold(failureRateThreshold)
+				.slowCallRateThreshold(slowCallRateThreshold)
+				.slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMillis))
+				.slidingWindowSize(slidingWindowSize)
+				.minimumNumberOfCalls(minimumNumberOfCalls)
+				.waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMillis))
+				.permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+				.ignoreExceptions(HttpClientErrorException.class, BulkheadFullException.class)
+				.build());
+		RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom()
+				.maxAttempts(maxAttempts)
+				.intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+						Duration.ofMillis(initialIntervalMillis), multiplier, randomizationFactor))
+				.retryOnException(ProductServiceResilience::isRetryable)
+				.build());
+
+		this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+		this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+		this.retry = retryRegistry.retry(NAME);
+
+		TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+		TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
+	}
+
+	/**
+	 * Runs an idempotent read against the product service.
+	 *
+	 * @param call the call to the product service
+	 * @param deadline the {@link System#nanoTime()} after which no further attempt is started
+	 * @param <T> the type of the result
+	 * @return the result of the call
+	 * @throws ProductServiceUnavailableException if the circuit breaker is open, too many calls are in flight or
+	 *                                            the deadline has passed before an attempt
+	 */
+	public <T> T read(Supplier<T> call, long deadline) {
+		Supplier<T> attempt = CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call));
+		Supplier<T> guarded = Retry.decorateSupplier(retry, () -> {
+			if (System.nanoTime() - deadline >= 0) {
+				throw new ProductServiceUnavailableException("Product lookup timed out");
+			}
+			return attempt.get();
+		});
+		try {
+			return guarded.get();
+		} catch (CallNotPermittedException e) {
+			throw new ProductServiceUnavailableException("Product service circuit breaker is open", e);
+		} catch (BulkheadFullException e) {
+			throw new ProductServiceUnavailableException("Too many concurrent product service calls", e);
+		}
+	}
+
+	/**
+	 * Closes the circuit breaker and clears its statistics.
+	 */
+	public void reset() {
+		circuitBreaker.reset();
+	}
+
+	/**
+	 * Checks whether a failed call may succeed when repeated.
+	 *
+	 * @param e the failure
+	 * @return true if the product service could not be reached or was temporarily unavailable, false otherwise
+	 */
+	private static boolean isRetryable(Throwable e) {
+		if (e instanceof ResourceAccessException) {
+			return true;
+		}
+		return e instanceof HttpServerErrorException serverError
+				&& RETRYABLE_STATUSES.contains(serverError.getStatusCode().value());
+	}
+}
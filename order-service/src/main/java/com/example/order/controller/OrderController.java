@@ -1,15 +1,35 @@
 package com.example.order.controller;
 
+import com.example.order.exception.ProductNotAvailableException;
+import com.example.order.exception.ProductServiceUnavailableException;
 import com.example.order.model.Order;
-import com.example.order.security.JwtUtil;
 import com.example.order.security.SecurityConstants;
 import com.example.order.service.interfaces.OrderService;
+import com.example.security.CredentialHeaders;
+import com.example.security.JwtPrincipal;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST controller for managing orders.
@@ -18,39 +38,111 @@ import java.util.List;
 @RequestMapping("/orders")
 public class OrderController {
 
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final long MAX_WAIT_SECONDS = 30;
+	private static final String PREFER_HEADER = "Prefer";
+	private static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+	private static final String RESPOND_ASYNC = "respond-async";
+
 	@Autowired
 	private OrderService orderService;
 
 	@Autowired
-	private JwtUtil jwtUtil;
+	private ObjectMapper objectMapper;
 
 	/**
 	 * Creates a new order.
+	 * <p>
+	 * With {@code Prefer: respond-async} the order is saved as pending and its products are validated in the
+	 * background. The response is 202 (Accepted) with the location of the order, whose status can be polled,
+	 * or long-polled with {@code ?wait=<seconds>}.
+	 * </p>
 	 *
 	 * @param order the order to be created
-	 * @param authorizationHeader the authorization header containing the JWT token
-	 * @return the created order
+	 * @param principal the authenticated principal decoded from the JWT token
+	 * @param headers the request headers whose credentials are forwarded to the product service
+	 * @return the created order, or the pending order if asynchronous placement was requested
 	 */
 	@PostMapping
-	public ResponseEntity<Order> createOrder(@RequestBody Order order,
-			@RequestHeader(SecurityConstants.JWT_HEADER_STRING) String authorizationHeader) {
-		order.setUsername(jwtUtil.getUsername(authorizationHeader.substring(SecurityConstants.JWT_TOKEN_PREFIX.length())));
-		return new ResponseEntity<>(orderService.save(order, authorizationHeader), HttpStatus.CREATED);
+	public ResponseEntity<Order> createOrder(@RequestBody Order order, @AuthenticationPrincipal JwtPrincipal principal,
+			@RequestHeader HttpHeaders headers) {
+		order.setUsername(principal.getUsername());
+		if (!prefersAsync(headers)) {
+			return new ResponseEntity<>(orderService.save(order, CredentialHeaders.copyOf(headers)), HttpStatus.CREATED);
+		}
+
+		Order pendingOrder = orderService.placeAsync(order, CredentialHeaders.copyOf(headers));
+		URI location = fromCurrentRequestPath()
+				.path("/{id}")
+				.buildAndExpand(pendingOrder.getId())
+				.toUri();
+		return ResponseEntity.accepted()
+				.location(location)
+				.header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC)
+				.body(pendingOrder);
+	}
+
+	/**
+	 * Imports many orders of the authenticated user with a single request.
+	 * <p>
+	 * The body is either a JSON array of orders or newline delimited JSON with one order per line. Orders are
+	 * read from the body while earlier ones are validated and saved, and the result of every order is streamed
+	 * back as a line of newline delimited JSON holding its index in the body, its ID if it was saved, and its
+	 * status. Orders with unavailable products are rejected individually without failing the import.
+	 * </p>
+	 *
+	 * @param principal the authenticated principal decoded from the JWT token
+	 * @param headers the request headers whose credentials are forwarded to the product service
+	 * @param request the HTTP request the orders are read from
+	 * @param response the HTTP response the results are written to
+	 * @throws IOException if reading the request or writing the response fails
+	 */
+	@PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+			produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void importOrders(@AuthenticationPrincipal JwtPrincipal principal, @RequestHeader HttpHeaders headers,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		OutputStream out = response.getOutputStream();
+		try (MappingIterator<Order> orders = objectMapper.readerFor(Order.class).readValues(request.getInputStream())) {
+			orderService.importOrders(orders, principal.getUsername(), CredentialHeaders.copyOf(headers), result -> {
+				try {
+					out.write(objectMapper.writeValueAsBytes(result));
+					out.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		out.flush();
 	}
 
 	/**
-	 * Retrieves all orders.
+	 * Retrieves all orders, or a single page of orders if {@code after} or {@code limit} is given.
+	 * Pages are ordered by ID; if a page is full, the {@code Link} header points to the next page.
 	 *
-	 * @param authorizationHeader the authorization header containing the JWT token
-	 * @return a list of all orders or orders for the specific user
+	 * @param principal the authenticated principal decoded from the JWT token
+	 * @param after the ID of the last order of the previous page, or null for the first page
+	 * @param limit the maximum number of orders per page, capped at 1000
+	 * @return a list of all orders or orders for the specific user, or 400 (Bad Request) if the limit is not positive
 	 */
 	@GetMapping
-	public ResponseEntity<List<Order>> getAllOrders(@RequestHeader(SecurityConstants.JWT_HEADER_STRING) String authorizationHeader) {
-		if (jwtUtil.getRoles(authorizationHeader.substring(SecurityConstants.JWT_TOKEN_PREFIX.length())).contains(SecurityConstants.ROLE_ADMIN)) {
-			return ResponseEntity.ok(orderService.findAll());
-		} else {
-			return ResponseEntity.ok(orderService.findByUserId(jwtUtil.getUsername(authorizationHeader.substring(SecurityConstants.JWT_TOKEN_PREFIX.length()))));
+	public ResponseEntity<List<Order>> getAllOrders(@AuthenticationPrincipal JwtPrincipal principal,
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		boolean admin = principal.hasRole(SecurityConstants.ROLE_ADMIN);
+		if (after == null && limit == null) {
+			return ResponseEntity.ok(admin ? orderService.findAll() : orderService.findByUserId(principal.getUsername()));
 		}
+		if (limit != null && limit < 1) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		int pageSize = pageSize(limit);
+		List<Order> page = admin
+				? orderService.findPage(after, pageSize)
+				: orderService.findPageByUserId(principal.getUsername(), after, pageSize);
+		return pageResponse(page, pageSize);
 	}
 
 	/**
@@ -66,20 +158,42 @@ public class OrderController {
 				.orElse(ResponseEntity.notFound().build());
 	}
 
+	/**
+	 * Retrieves an order by its ID once it is no longer pending, waiting at most the given number of seconds.
+	 * The request thread is released while waiting.
+	 *
+	 * @param id the ID of the order
+	 * @param waitSeconds the maximum time to wait for the decision in seconds, capped at 30
+	 * @return the order when it is decided or the wait time is up, or a 404 Not Found response
+	 */
+	@GetMapping(value = "/{id}", params = "wait")
+	public DeferredResult<ResponseEntity<Order>> awaitOrderById(@PathVariable("id") Long id,
+			@RequestParam("wait") long waitSeconds) {
+		long timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, Math.min(waitSeconds, MAX_WAIT_SECONDS)));
+		DeferredResult<ResponseEntity<Order>> result = new DeferredResult<>(timeoutMillis, () -> getOrderById(id));
+		CompletableFuture<Void> decision = orderService.awaitDecision(id);
+		decision.thenRun(() -> result.setResult(getOrderById(id)));
+		// Stops waiting for the decision once the request completes or times out
+		result.onCompletion(() -> decision.cancel(false));
+		return result;
+	}
+
 	/**
 	 * Updates an existing order.
 	 *
 	 * @param id the ID of the order to be updated
 	 * @param order the updated order details
-	 * @param authorizationHeader the authorization header containing the JWT token
+	 * @param principal the authenticated principal decoded from the JWT token
+	 * @param headers the request headers whose credentials are forwarded to the product service
 	 * @return the updated order
 	 */
 	@PutMapping("/{id}")
 	public ResponseEntity<Order> updateOrder(@PathVariable("id") Long id, @RequestBody Order order,
-			@RequestHeader(SecurityConstants.JWT_HEADER_STRING) String authorizationHeader) {
+			@AuthenticationPrincipal JwtPrincipal principal,
+			@RequestHeader HttpHeaders headers) {
 		order.setId(id);
-		order.setUsername(jwtUtil.getUsername(authorizationHeader.substring(SecurityConstants.JWT_TOKEN_PREFIX.length())));
-		return ResponseEntity.ok(orderService.save(order, authorizationHeader));
+		order.setUsername(principal.getUsername());
+		return ResponseEntity.ok(orderService.save(order, CredentialHeaders.copyOf(headers)));
 	}
 
 	/**
@@ -95,13 +209,108 @@ public class OrderController {
 	}
 
 	/**
-	 * Retrieves orders for a specific user by their username.
+	 * Retrieves orders for a specific user by their username,
+	 * or a single page of them if {@code after} or {@code limit} is given.
 	 *
 	 * @param username the username of the user
-	 * @return a list of orders for the specified user
+	 * @param after the ID of the last order of the previous page, or null for the first page
+	 * @param limit the maximum number of orders per page, capped at 1000
+	 * @return a list of orders for the specified user, or 400 (Bad Request) if the limit is not positive
 	 */
 	@GetMapping("/user/{username}")
-	public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable("username") String username) {
-		return ResponseEntity.ok(orderService.findByUserId(username));
+	public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable("username") String username,
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		if (after == null && limit == null) {
+			return ResponseEntity.ok(orderService.findByUserId(username));
+		}
+		if (limit != null && limit < 1) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		int pageSize = pageSize(limit);
+		return pageResponse(orderService.findPageByUserId(username, after, pageSize), pageSize);
+	}
+
+	/**
+	 * Checks whether the client asked for asynchronous processing with {@code Prefer: respond-async}.
+	 *
+	 * @param headers the request headers
+	 * @return true if asynchronous processing is preferred, false otherwise
+	 */
+	private static boolean prefersAsync(HttpHeaders headers) {
+		List<String> preferences = headers.getValuesAsList(PREFER_HEADER);
+		for (String preference : preferences) {
+			if (preference.trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves the page size from the requested limit.
+	 *
+	 * @param limit the requested limit, or null for the default
+	 * @return the page size, capped at the maximum
+	 */
+	private static int pageSize(Integer limit) {
+		return limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Creates the response for a page of orders, linking to the next page if the page is full.
+	 *
+	 * @param page the orders of the page
+	 * @param pageSize the page size
+	 * @return the response with HTTP status 200 (OK)
+	 */
+	private static ResponseEntity<List<Order>> pageResponse(List<Order> page, int pageSize) {
+		if (page.size() < pageSize) {
+			return ResponseEntity.ok(page);
+		}
+
+		String next = fromCurrentRequestPath()
+				.replaceQueryParam("after", page.get(page.size() - 1).getId())
+				.replaceQueryParam("limit", pageSize)
+				.toUriString();
+		return ResponseEntity.ok()
+				.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+				.body(page);
+	}
+
+	/**
+	 * Creates a URI builder for the path and query of the current request, without its host. Behind the gateway,
+	 * the host of the request is this instance, which clients cannot reach.
+	 *
+	 * @return the builder
+	 */
+	private static UriComponentsBuilder fromCurrentRequestPath() {
+		return ServletUriComponentsBuilder.fromCurrentRequest()
+				.scheme(null)
+				.host(null)
+				.port(null);
+	}
+
+	/**
+	 * Handles orders that reference unavailable products.
+	 *
+	 * @param e the exception listing the missing product IDs
+	 * @return a 400 Bad Request response listing the missing product IDs
+	 */
+	@ExceptionHandler(ProductNotAvailableException.class)
+	public ResponseEntity<Map<String, Object>> handleProductNotAvailable(ProductNotAvailableException e) {
+		return ResponseEntity.badRequest().body(Map.of("missingProductIds", e.getMissingProductIds()));
+	}
+
+	/**
+	 * Handles failed or timed out product lookups.
+	 *
+	 * @param e the exception describing the failure
+	 * @return a 503 Service Unavailable response
+	 */
+	@ExceptionHandler(ProductServiceUnavailableException.class)
+	public ResponseEntity<Map<String, Object>> handleProductServiceUnavailable(ProductServiceUnavailableException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
 	}
 }
@@ -0,0 +1,61 @@
+package com.example.order.controller;
+
+import com.example.order.client.ProductCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Internal REST controller the product service calls to invalidate cached products.
+ * Not routed through the API gateway.
+ */
+@RestController
+@RequestMapping("/internal/product-cache")
+public class ProductCacheController {
+
+	@Autowired
+	private ProductCache productCache;
+
+	/**
+	 * Invalidates the cached entry of a product.
+	 *
+	 * @param productId the ID of the product that changed
+	 * @return a 204 No Content response
+	 */
+	@DeleteMapping("/{productId}")
+	public ResponseEntity<Void> invalidateProduct(@PathVariable("productId") Long productId) {
+		productCache.invalidate(productId);
+		return ResponseEntity.noContent().build();
+	}
+
+	/**
+	 * Invalidates the cached entries of a batch of changed products, as pushed by the outbox relay of the
+	 * product service.
+	 *
+	 * @param productIds the IDs of the products that changed
+	 * @return a 204 No Content response
+	 */
+	@PostMapping("/invalidations")
+	public ResponseEntity<Void> invalidateProducts(@RequestBody List<Long> productIds) {
+		productCache.invalidateAll(productIds);
+		return ResponseEntity.noContent().build();
+	}
+
+	/**
+	 * Invalidates all cached products.
+	 *
+	 * @return a 204 No Content response
+	 */
+	@DeleteMapping
+	public ResponseEntity<Void> invalidateAll() {
+		productCache.invalidateAll();
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.order.event;
+
+import com.example.order.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Application event published by the {@link OutboxRelay} with a batch of committed changes.
+ */
+public class ChangeBatchEvent {
+
+	private final List<OutboxEvent> changes;
+
+	/**
+	 * Constructs a ChangeBatchEvent.
+	 *
+	 * @param changes the changes in the order they were recorded
+	 */
+	public ChangeBatchEvent(List<OutboxEvent> changes) {
+		this.changes = List.copyOf(changes);
+	}
+
+	/**
+	 * Gets the changes of the batch.
+	 *
+	 * @return an unmodifiable list of the changes in the order they were recorded
+	 */
+	public List<OutboxEvent> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Gets the IDs of the changed entities of the given type.
+	 *
+	 * @param aggregateType the type of the entities
+	 * @return the distinct IDs in the order of their first change
+	 */
+	public List<Long> getAggregateIds(String aggregateType) {
+		return changes.stream()
+				.filter(change -> aggregateType.equals(change.getAggregateType()))
+				.map(OutboxEvent::getAggregateId)
+				.distinct()
+				.toList();
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.order.event;
+
+import com.example.order.model.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Pushes relayed changes to several targets, tracking for every target the last change it received.
+ * <p>
+ * A batch that is relayed again after a failed push is only pushed to the targets that did not receive it yet, so
+ * one failing target neither stops the others from receiving the batch nor makes them receive it twice. Failures
+ * are handled per target:
+ * </p>
+ * <ul>
+ * <li>a 4xx response will not change by retrying, so the changes are dropped for that target and logged;</li>
+ * <li>a 5xx response or an I/O error fails the push, so the {@link OutboxRelay} keeps the batch and relays it
+ * again until it reaches the retry age of the outbox.</li>
+ * </ul>
+ * <p>
+ * The progress of the targets is kept in memory, so after a restart the changes still in the outbox are pushed to
+ * every target again.
+ * </p>
+ */
+final class ChangePushes {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChangePushes.class);
+
+	private final Map<String, Long> lastDelivered = new ConcurrentHashMap<>();
+
+	/**
+	 * Pushes a batch of changes to every target that has not received them yet.
+	 *
+	 * @param changes the changes in the order they were recorded
+	 * @param targets the targets, such as URLs
+	 * @param push the push of changes to a target, throwing a {@link RestClientException} if it fails
+	 * @throws IllegalStateException if a target failed temporarily, so the batch must be relayed again
+	 */
+	void push(List<OutboxEvent> changes, Collection<String> targets, BiConsumer<String, List<OutboxEvent>> push) {
+		lastDelivered.keySet().retainAll(targets);
+		List<String> failedTargets = new ArrayList<>();
+		RestClientException failure = null;
+		for (String target : targets) {
+			Long delivered = lastDelivered.get(target);
+			List<OutboxEvent> pending = delivered == null ? changes
+					: changes.stream().filter(change -> change.getId() > delivered).toList();
+			if (pending.isEmpty()) {
+				continue;
+			}
+			try {
+				push.accept(target, pending);
+			} catch (HttpClientErrorException e) {
+				LOGGER.error("Dropping {} changes for {}, which rejected them with {}", pending.size(), target,
+						e.getStatusCode());
+			} catch (RestClientException e) {
+				failedTargets.add(target);
+				failure = e;
+				continue;
+			}
+			lastDelivered.put(target, pending.get(pending.size() - 1).getId());
+		}
+		if (!failedTargets.isEmpty()) {
+			throw new IllegalStateException("Could not push changes to " + failedTargets, failure);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.order.event;
+
+import com.example.security.ServiceCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Pushes the order changes relayed from the outbox to the configured subscribers over HTTP.
+ * <p>
+ * Every batch is posted as a JSON array of change events to each URL in {@code outbox.push-urls}, authenticated
+ * with the {@link ServiceCredentials} of the order service. Subscribers fetch the changed orders themselves, so a
+ * projection only re-reads what changed. Pushes are made on the relay thread and tracked per subscriber by
+ * {@link ChangePushes}: a subscriber that rejects a batch with a 4xx response does not receive it again, and a
+ * subscriber that cannot be reached fails the relay, so the batch stays in the outbox and is pushed again to the
+ * subscribers that did not receive it yet. If the order service has no credentials of its own, which is the case
+ * with RS256 tokens and identity propagation disabled, pushes are skipped with a warning.
+ * </p>
+ */
+@Component
+public class OrderChangePublisher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderChangePublisher.class);
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	private final List<String> pushUrls;
+	private final ServiceCredentials serviceCredentials;
+	private final RestTemplate restTemplate;
+	private final ChangePushes changePushes = new ChangePushes();
+
+	/**
+	 * Constructs an OrderChangePublisher.
+	 *
+	 * @param pushUrls the URLs the changes are posted to, empty to only publish them in-process
+	 * @param serviceCredentials the credentials the order service authenticates with
+	 * @param restTemplateBuilder the builder for the RestTemplate calling the subscribers
+	 */
+	@Autowired
+	public OrderChangePublisher(@Value("${outbox.push-urls:}") List<String> pushUrls,
+			ServiceCredentials serviceCredentials, RestTemplateBuilder restTemplateBuilder) {
+		this.pushUrls = pushUrls;
+		this.serviceCredentials = serviceCredentials;
+		this.restTemplate = restTemplateBuilder
+				.setConnectTimeout(TIMEOUT)
+				.setReadTimeout(TIMEOUT)
+				.build();
+	}
+
+	/**
+	 * Posts a batch of changes to every subscriber that has not received it yet.
+	 *
+	 * @param event the batch of changes relayed from the outbox
+	 * @throws IllegalStateException if a subscriber cannot be reached
+	 */
+	@EventListener
+	public void onChanges(ChangeBatchEvent event) {
+		if (pushUrls.isEmpty()) {
+			return;
+		}
+
+		HttpHeaders headers;
+		try {
+			headers = serviceCredentials.create();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Not pushing {} order changes, the order service has no credentials: {}",
+					event.getChanges().size(), e.getMessage());
+			return;
+		}
+		headers.setContentType(MediaType.APPLICATION_JSON);
+
+		changePushes.push(event.getChanges(), pushUrls,
+				(pushUrl, changes) -> restTemplate.postForEntity(pushUrl, new HttpEntity<>(changes, headers), Void.class));
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.order.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Thrown when an order references products that are not available in the product service.
+ */
+public class ProductNotAvailableException extends RuntimeException {
+
+	private final Set<Long> missingProductIds;
+
+	/**
+	 * Constructs a ProductNotAvailableException for the given missing product IDs.
+	 *
+	 * @param missingProductIds the IDs of the products that could not be found
+	 */
+	public ProductNotAvailableException(Set<Long> missingProductIds) {
+		super("Products not available: " + missingProductIds);
+		this.missingProductIds = Collections.unmodifiableSet(new LinkedHashSet<>(missingProductIds));
+	}
+
+	/**
+	 * Gets the IDs of the products that could not be found.
+	 *
+	 * @return the missing product IDs
+	 */
+	public Set<Long> getMissingProductIds() {
+		return missingProductIds;
+	}
+}
@@ -0,0 +1,26 @@
+package com.example.order.exception;
+
+/**
+ * Thrown when the product service cannot be reached or does not answer in time.
+ */
+public class ProductServiceUnavailableException extends RuntimeException {
+
+	/**
+	 * Constructs a ProductServiceUnavailableException with the given message.
+	 *
+	 * @param message the detail message
+	 */
+	public ProductServiceUnavailableException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Constructs a ProductServiceUnavailableException with the given message and cause.
+	 *
+	 * @param message the detail message
+	 * @param cause the underlying cause
+	 */
+	public ProductServiceUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
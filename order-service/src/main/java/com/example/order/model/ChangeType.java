@@ -0,0 +1,17 @@
+package com.example.order.model;
+
+/**
+ * Kind of change recorded in the outbox.
+ */
+public enum ChangeType
+{
+	/**
+	 * The entity was created or updated.
+	 */
+	SAVED,
+
+	/**
+	 * The entity was deleted.
+	 */
+	DELETED
+}
@@ -7,15 +7,19 @@ import java.util.List;
 
 
 @Entity
-@Table(name = "\"order\"")
+@Table(name = "\"order\"", indexes = @Index(name = "idx_order_username_id", columnList = "username, id"))
 public class Order
 {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+	@SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 100)
 	private Long id;
 	private String username;
 	@ElementCollection
 	private List<Long> productIds;
+	@Enumerated(EnumType.STRING)
+	private OrderStatus status = OrderStatus.CONFIRMED;
+	private String statusReason;
 
 	public Long getId()
 	{
@@ -46,5 +50,25 @@ public class Order
 	{
 		this.productIds = productIds;
 	}
+
+	public OrderStatus getStatus()
+	{
+		return status;
+	}
+
+	public void setStatus(OrderStatus status)
+	{
+		this.status = status;
+	}
+
+	public String getStatusReason()
+	{
+		return statusReason;
+	}
+
+	public void setStatusReason(String statusReason)
+	{
+		this.statusReason = statusReason;
+	}
 }
 
@@ -0,0 +1,65 @@
+package com.example.order.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderImportResult
+{
+	private int index;
+	private Long id;
+	private OrderStatus status;
+	private String statusReason;
+
+	public OrderImportResult()
+	{
+	}
+
+	public OrderImportResult(int index, Long id, OrderStatus status, String statusReason)
+	{
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.statusReason = statusReason;
+	}
+
+	public int getIndex()
+	{
+		return index;
+	}
+
+	public void setIndex(int index)
+	{
+		this.index = index;
+	}
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public OrderStatus getStatus()
+	{
+		return status;
+	}
+
+	public void setStatus(OrderStatus status)
+	{
+		this.status = status;
+	}
+
+	public String getStatusReason()
+	{
+		return statusReason;
+	}
+
+	public void setStatusReason(String statusReason)
+	{
+		this.statusReason = statusReason;
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.order.model;
+
+/**
+ * Lifecycle status of an order.
+ */
+public enum OrderStatus
+{
+	/**
+	 * The order has been accepted, but its products have not been validated yet.
+	 */
+	PENDING,
+
+	/**
+	 * All products of the order are available.
+	 */
+	CONFIRMED,
+
+	/**
+	 * The order references unavailable products, or they could not be validated.
+	 */
+	REJECTED
+}
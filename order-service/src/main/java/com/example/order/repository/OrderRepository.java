@@ -1,9 +1,18 @@
 package com.example.order.repository;
 
 import com.example.order.model.Order;
+import com.example.order.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing {@link Order} entities.
@@ -11,10 +20,107 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
 	/**
-	 * Finds a list of orders by the username.
+	 * Finds all orders together with their product IDs in a single query.
+	 *
+	 * @return a list of all orders
+	 */
+	@Override
+	@EntityGraph(attributePaths = "productIds")
+	List<Order> findAll();
+
+	/**
+	 * Finds an order together with its product IDs in a single query.
+	 *
+	 * @param id the ID of the order
+	 * @return an Optional containing the order if found, or empty if not found
+	 */
+	@Override
+	@EntityGraph(attributePaths = "productIds")
+	Optional<Order> findById(Long id);
+
+	/**
+	 * Finds a list of orders by the username, together with their product IDs in a single query.
 	 *
 	 * @param username the username of the user whose orders are to be retrieved
 	 * @return a list of orders associated with the given username
 	 */
+	@EntityGraph(attributePaths = "productIds")
 	List<Order> findByUsername(String username);
+
+	/**
+	 * Finds the username of the owner of an order without loading the order itself.
+	 *
+	 * @param id the ID of the order
+	 * @return an Optional containing the username, or empty if the order does not exist
+	 */
+	@Query("select o.username from Order o where o.id = :id")
+	Optional<String> findUsernameById(@Param("id") Long id);
+
+	/**
+	 * Finds the status of an order without loading the order itself.
+	 *
+	 * @param id the ID of the order
+	 * @return an Optional containing the status, or empty if the order does not exist
+	 */
+	@Query("select o.status from Order o where o.id = :id")
+	Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
+	/**
+	 * Moves an order from one status to another.
+	 * Only one of several concurrent callers can move the order out of the expected status.
+	 *
+	 * @param id the ID of the order
+	 * @param expected the status the order must currently have
+	 * @param status the new status
+	 * @param reason the reason for the new status, or null
+	 * @return the number of updated orders, 1 if the order had the expected status and 0 otherwise
+	 */
+	@Modifying
+	@Transactional
+	@Query("update Order o set o.status = :status, o.statusReason = :reason where o.id = :id and o.status = :expected")
+	int updateStatus(@Param("id") Long id, @Param("expected") OrderStatus expected, @Param("status") OrderStatus status,
+			@Param("reason") String reason);
+
+	/**
+	 * Finds the IDs of the orders following the given ID, ordered by ID.
+	 * The ID acts as a keyset cursor, so the database seeks to it through the primary key index.
+	 *
+	 * @param after the ID of the last order of the previous page
+	 * @param pageable the maximum number of IDs to return
+	 * @return the IDs of the next page of orders
+	 */
+	@Query("select o.id from Order o where o.id > :after order by o.id")
+	List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Finds the IDs of the orders of the given user following the given ID, ordered by ID.
+	 * Served from the {@code (username, id)} index.
+	 *
+	 * @param username the username of the user whose orders are to be retrieved
+	 * @param after the ID of the last order of the previous page
+	 * @param pageable the maximum number of IDs to return
+	 * @return the IDs of the next page of orders of the user
+	 */
+	@Query("select o.id from Order o where o.username = :username and o.id > :after order by o.id")
+	List<Long> findIdsByUsernameAfter(@Param("username") String username, @Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Finds the IDs of the orders with the given status following the given ID, ordered by ID.
+	 *
+	 * @param status the status of the orders
+	 * @param after the ID of the last order of the previous page
+	 * @param pageable the maximum number of IDs to return
+	 * @return the IDs of the next page of orders with the status
+	 */
+	@Query("select o.id from Order o where o.status = :status and o.id > :after order by o.id")
+	List<Long> findIdsByStatusAfter(@Param("status") OrderStatus status, @Param("after") Long after, Pageable pageable);
+
+	/**
+	 * Finds the orders with the given IDs together with their product IDs in a single query.
+	 *
+	 * @param ids the IDs of the orders
+	 * @return the orders ordered by ID
+	 */
+	@EntityGraph(attributePaths = "productIds")
+	List<Order> findByIdInOrderByIdAsc(Collection<Long> ids);
 }
@@ -0,0 +1,41 @@
+package com.example.order.repository;
+
+import com.example.order.model.ChangeType;
+import com.example.order.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for {@link OutboxEvent} entities.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	/**
+	 * Finds the oldest outbox events in the order they were recorded.
+	 *
+	 * @param limit the maximum number of events to return
+	 * @return the oldest events
+	 */
+	List<OutboxEvent> findAllByOrderByIdAsc(Limit limit);
+
+	/**
+	 * Appends a change to the outbox. Must be called within the transaction of the change,
+	 * so the change and its event are committed or rolled back together.
+	 *
+	 * @param aggregateType the type of the changed entity
+	 * @param aggregateId the ID of the changed entity
+	 * @param changeType the kind of change
+	 * @return the recorded event
+	 */
+	default OutboxEvent append(String aggregateType, Long aggregateId, ChangeType changeType) {
+		OutboxEvent event = new OutboxEvent();
+		event.setAggregateType(aggregateType);
+		event.setAggregateId(aggregateId);
+		event.setChangeType(changeType);
+		event.setCreatedAt(Instant.now());
+		return save(event);
+	}
+}
@@ -1,46 +1,45 @@
 package com.example.order.security;
 
-import com.example.order.model.Order;
 import com.example.order.service.interfaces.OrderService;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtPrincipal;
+import com.example.security.JwtUtil;
+import com.example.security.servlet.AbstractJwtAuthorizationFilter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Filter for handling authorization based on JWT tokens.
+ * <p>
+ * When identity propagation is enabled, the signed identity header of the API gateway is accepted instead of
+ * the JWT token, so the token does not have to be verified again.
+ * </p>
  */
 @Component
-public class AuthorizationFilter extends OncePerRequestFilter {
+public class AuthorizationFilter extends AbstractJwtAuthorizationFilter {
 
-	private JwtUtil jwtUtil;
 	private OrderService orderService;
 
 	private static final String ORDERS_PATH = "/orders/";
 	private static final String ORDERS_USERS_PATH = "/orders/user/";
-	private static final String ROLE = "ROLE_";
 
 	/**
-	 * Constructs an AuthorizationFilter with the given JwtUtil and OrderService.
+	 * Constructs an AuthorizationFilter with the given JwtUtil, IdentityHeaderCodec and OrderService.
 	 *
 	 * @param jwtUtil the JWT utility for token operations
+	 * @param identityHeaderCodec the codec for the signed identity header of the API gateway
 	 * @param orderService the service for managing orders
 	 */
 	@Autowired
-	public AuthorizationFilter(JwtUtil jwtUtil, OrderService orderService) {
-		this.jwtUtil = jwtUtil;
+	public AuthorizationFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec, OrderService orderService) {
+		super(jwtUtil, identityHeaderCodec);
 		this.orderService = orderService;
 	}
 
@@ -56,19 +55,12 @@ public class AuthorizationFilter extends OncePerRequestFilter {
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
-		String token = resolveToken(request);
+		JwtPrincipal principal = resolvePrincipal(request);
 
-		if (token != null && jwtUtil.validateToken(token)) {
-			String username = jwtUtil.getUsername(token);
-			List<String> roles = jwtUtil.getRoles(token);
-			List<GrantedAuthority> authorities = roles.stream()
-					.map(role -> new SimpleGrantedAuthority(ROLE + role))
-					.collect(Collectors.toList());
+		if (principal != null) {
+			authenticate(principal);
 
-			UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
-			SecurityContextHolder.getContext().setAuthentication(auth);
-
-			if (isProtectedOrderEndpoint(request) && !isUserAllowedToAccessOrder(request, username, roles)) {
+			if (isProtectedOrderEndpoint(request) && !isUserAllowedToAccessOrder(request, principal)) {
 				response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 				return;
 			}
@@ -95,44 +87,29 @@ public class AuthorizationFilter extends OncePerRequestFilter {
 	 * Checks if the user is allowed to access the order.
 	 *
 	 * @param request the HTTP request
-	 * @param username the username from the JWT token
-	 * @param roles the roles from the JWT token
+	 * @param principal the principal decoded from the JWT token
 	 * @return true if the user is allowed to access the order, false otherwise
 	 */
-	private boolean isUserAllowedToAccessOrder(HttpServletRequest request, String username, List<String> roles) {
+	private boolean isUserAllowedToAccessOrder(HttpServletRequest request, JwtPrincipal principal) {
 		String uri = request.getRequestURI();
 
 		if (uri.startsWith(ORDERS_USERS_PATH)) {
 			String userIdStr = uri.split(ORDERS_USERS_PATH)[1];
-			return userIdStr.equals(username) || roles.contains(SecurityConstants.ROLE_ADMIN);
+			return userIdStr.equals(principal.getUsername()) || principal.hasRole(SecurityConstants.ROLE_ADMIN);
 		}
 
 		if (uri.startsWith(ORDERS_PATH)) {
 			String orderIdStr = uri.split(ORDERS_PATH)[1];
 			Long orderId = Long.parseLong(orderIdStr);
-			Order order = orderService.findById(orderId).orElse(null);
+			String owner = orderService.findOwnerById(orderId).orElse(null);
 
-			if (order == null) {
+			if (owner == null) {
 				return false;
 			}
 
-			return order.getUsername().equals(username) || roles.contains(SecurityConstants.ROLE_ADMIN);
+			return owner.equals(principal.getUsername()) || principal.hasRole(SecurityConstants.ROLE_ADMIN);
 		}
 
 		return true;
 	}
-
-	/**
-	 * Resolves the JWT token from the HTTP request.
-	 *
-	 * @param request the HTTP request
-	 * @return the JWT token, or null if not found
-	 */
-	private String resolveToken(HttpServletRequest request) {
-		String bearerToken = request.getHeader(SecurityConstants.JWT_HEADER_STRING);
-		if (bearerToken != null && bearerToken.startsWith(SecurityConstants.JWT_TOKEN_PREFIX)) {
-			return bearerToken.substring(SecurityConstants.JWT_TOKEN_PREFIX.length());
-		}
-		return null;
-	}
 }
@@ -1,7 +1,12 @@
 package com.example.order.security;
 
+import com.example.security.CommonSecurityConstants;
+
 /**
  * Constants used for security configuration.
+ * <p>
+ * The values shared by all services are defined in {@link CommonSecurityConstants}.
+ * </p>
  */
 public final class SecurityConstants {
 
@@ -9,23 +14,28 @@ public final class SecurityConstants {
 	/**
 	 * Prefix for the JWT token.
 	 */
-	public static final String JWT_TOKEN_PREFIX = "Bearer ";
+	public static final String JWT_TOKEN_PREFIX = CommonSecurityConstants.JWT_TOKEN_PREFIX;
 
 	/**
 	 * Header string for the JWT token.
 	 */
-	public static final String JWT_HEADER_STRING = "Authorization";
+	public static final String JWT_HEADER_STRING = CommonSecurityConstants.JWT_HEADER_STRING;
+
+	/**
+	 * Header string for the signed identity propagated by the API gateway.
+	 */
+	public static final String IDENTITY_HEADER_STRING = CommonSecurityConstants.IDENTITY_HEADER_STRING;
 
 	// Role based constants
 	/**
 	 * Role constant for users.
 	 */
-	public static final String ROLE_USER = "USER";
+	public static final String ROLE_USER = CommonSecurityConstants.ROLE_USER;
 
 	/**
 	 * Role constant for administrators.
 	 */
-	public static final String ROLE_ADMIN = "ADMIN";
+	public static final String ROLE_ADMIN = CommonSecurityConstants.ROLE_ADMIN;
 
 	// URL patterns
 	/**
@@ -33,11 +43,21 @@ public final class SecurityConstants {
 	 */
 	public static final String ORDERS_URL = "/orders/**";
 
+	/**
+	 * URL pattern for the internal product cache endpoints.
+	 */
+	public static final String PRODUCT_CACHE_URL = "/internal/product-cache/**";
+
 	/**
 	 * Base URL for the product service.
 	 */
 	public static final String PRODUCT_SERVICE_URL = "http://PRODUCT-SERVICE/products/";
 
+	/**
+	 * URL of the product service batch lookup.
+	 */
+	public static final String PRODUCT_SERVICE_BATCH_URL = PRODUCT_SERVICE_URL + "batch";
+
 	/**
 	 * Private constructor to prevent instantiation.
 	 */
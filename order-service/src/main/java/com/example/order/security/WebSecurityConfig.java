@@ -1,5 +1,6 @@
 package com.example.order.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,10 +43,14 @@ public class WebSecurityConfig {
 				.csrf(csrf -> csrf.disable())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(authz -> authz
+						// Long-polled requests were authorized before they were suspended
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 						.requestMatchers(HttpMethod.POST, SecurityConstants.ORDERS_URL).hasAnyRole(SecurityConstants.ROLE_USER, SecurityConstants.ROLE_ADMIN)
 						.requestMatchers(HttpMethod.GET, SecurityConstants.ORDERS_URL).authenticated()
 						.requestMatchers(HttpMethod.PUT, SecurityConstants.ORDERS_URL).authenticated()
 						.requestMatchers(HttpMethod.DELETE, SecurityConstants.ORDERS_URL).authenticated()
+						.requestMatchers(HttpMethod.DELETE, SecurityConstants.PRODUCT_CACHE_URL).hasRole(SecurityConstants.ROLE_ADMIN)
+						.requestMatchers(HttpMethod.POST, SecurityConstants.PRODUCT_CACHE_URL).hasRole(SecurityConstants.ROLE_ADMIN)
 						.anyRequest().authenticated()
 				)
 				.addFilterBefore(authorizationFilter, UsernamePasswordAuthenticationFilter.class);
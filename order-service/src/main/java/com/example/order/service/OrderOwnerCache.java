@@ -0,0 +1,91 @@
+package com.example.order.service;
+
+import com.example.order.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process cache of order owners, keyed by order ID.
+ * <p>
+ * Ownership checks only need the username of an order, so misses are loaded with a single-column query
+ * instead of the whole order. Entries are written when an order is saved and evicted when it is deleted.
+ * Other instances sharing the database do not see those writes, so entries also expire after a fixed TTL,
+ * which bounds how long a reassigned order keeps its previous owner there.
+ * Hit, miss and eviction counters are published under the {@code cache.*} metrics with the tag
+ * {@code cache=order-owners}.
+ * </p>
+ */
+@Component
+public class OrderOwnerCache {
+
+	private static final String CACHE_NAME = "order-owners";
+
+	private final OrderRepository orderRepository;
+	private final Cache<Long, String> cache;
+
+	/**
+	 * Constructs an OrderOwnerCache.
+	 *
+	 * @param orderRepository the repository the owners are loaded from on a miss
+	 * @param maxSize the maximum number of cached owners
+	 * @param ttlMillis the time after which a cached owner expires, in milliseconds
+	 * @param meterRegistry the registry the cache metrics are published to
+	 */
+	@Autowired
+	public OrderOwnerCache(OrderRepository orderRepository,
+			@Value("${order-owner-cache.max-size:100000}") long maxSize,
+			@Value("${order-owner-cache.ttl-ms:60000}") long ttlMillis,
+			MeterRegistry meterRegistry) {
+		this.orderRepository = orderRepository;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofMillis(ttlMillis))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Returns the username of the owner of an order, loading it from the database on a miss.
+	 *
+	 * @param orderId the ID of the order
+	 * @return an Optional containing the username, or empty if the order does not exist
+	 */
+	public Optional<String> getOwner(Long orderId) {
+		return Optional.ofNullable(cache.get(orderId, id -> orderRepository.findUsernameById(id).orElse(null)));
+	}
+
+	/**
+	 * Caches the owner of a saved order.
+	 *
+	 * @param orderId the ID of the order
+	 * @param username the username of the owner
+	 */
+	public void put(Long orderId, String username) {
+		cache.put(orderId, username);
+	}
+
+	/**
+	 * Removes the cached owner of a deleted order.
+	 *
+	 * @param orderId the ID of the order
+	 */
+	public void invalidate(Long orderId) {
+		cache.invalidate(orderId);
+	}
+
+	/**
+	 * Removes all cached owners.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+}
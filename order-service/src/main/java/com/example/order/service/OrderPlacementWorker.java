@@ -0,0 +1,369 @@
+package com.example.order.service;
+
+import com.example.order.client.ProductClient;
+import com.example.order.model.ChangeType;
+import com.example.order.model.Order;
+import com.example.order.model.OrderStatus;
+import com.example.order.repository.OrderRepository;
+import com.example.order.repository.OutboxEventRepository;
+import com.example.security.ServiceCredentials;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Validates the products of pending orders in the background.
+ * <p>
+ * Accepted orders are queued in memory and taken off the queue by a fixed pool of worker threads in batches of up
+ * to {@code batchSize} orders. The products of a whole batch are validated with a single lookup, after which every
+ * order is moved to {@link OrderStatus#CONFIRMED} or {@link OrderStatus#REJECTED}. Product lookups are not user
+ * specific, so a batch is looked up with the credentials of its first order. If the product service is
+ * unavailable, the batch is retried after {@code retryDelayMillis} and rejected after {@code maxAttempts}.
+ * </p>
+ * <p>
+ * When the queue is full, the submitting thread validates its order itself, so ingest slows down to the speed
+ * of synchronous placement instead of failing. Callers can wait for the decision on an order through
+ * {@link #awaitDecision(Long)}.
+ * </p>
+ * <p>
+ * The queue lives in memory only, so orders still pending when the service stops, or that could not be decided
+ * because of an error, are recovered from the database: at startup all pending orders are queued again, and every
+ * {@code sweepIntervalMillis} the pending orders that were not queued by this instance at two consecutive sweeps
+ * are queued again. Recovered orders are looked up with the {@link ServiceCredentials} of the order service.
+ * Deciding an order only succeeds while it is pending, so an order recovered by several instances is still
+ * decided once.
+ * </p>
+ */
+@Component
+public class OrderPlacementWorker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderPlacementWorker.class);
+
+	static final String PRODUCT_SERVICE_UNAVAILABLE_REASON = "Product service unavailable";
+	static final String PRODUCTS_NOT_AVAILABLE_REASON = "Products not available: ";
+
+	private final OrderRepository orderRepository;
+	private final OutboxEventRepository outboxEventRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ProductClient productClient;
+	private final ServiceCredentials serviceCredentials;
+	private final BlockingQueue<PendingOrder> queue;
+	private final Set<Long> queuedOrderIds = ConcurrentHashMap.newKeySet();
+	private final Map<Long, Set<CompletableFuture<Void>>> decisions = new ConcurrentHashMap<>();
+	private final ExecutorService executor;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long retryDelayMillis;
+	private Set<Long> unqueuedAtLastSweep = Set.of();
+
+	/**
+	 * Constructs an OrderPlacementWorker and starts its worker threads.
+	 *
+	 * @param orderRepository the repository the order status is updated in
+	 * @param outboxEventRepository the outbox status changes are recorded in
+	 * @param transactionTemplate the template updating the status and recording the change in one transaction
+	 * @param productClient the client validating the products
+	 * @param serviceCredentials the credentials the products of recovered orders are looked up with
+	 * @param threads the number of worker threads
+	 * @param queueCapacity the maximum number of queued orders
+	 * @param batchSize the maximum number of orders validated together
+	 * @param maxAttempts the maximum number of validation attempts per order while the product service is unavailable
+	 * @param retryDelayMillis the delay before a batch is retried in milliseconds
+	 */
+	@Autowired
+	public OrderPlacementWorker(OrderRepository orderRepository, OutboxEventRepository outboxEventRepository,
+			TransactionTemplate transactionTemplate, ProductClient productClient, ServiceCredentials serviceCredentials,
+			@Value("${order-placement.threads:4}") int threads,
+			@Value("${order-placement.queue-capacity:10000}") int queueCapacity,
+			@Value("${order-placement.batch-size:50}") int batchSize,
+			@Value("${order-placement.max-attempts:3}") int maxAttempts,
+			@Value("${order-placement.retry-delay-ms:1000}") long retryDelayMillis) {
+		this.orderRepository = orderRepository;
+		this.outboxEventRepository = outboxEventRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.productClient = productClient;
+		this.serviceCredentials = serviceCredentials;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMillis = retryDelayMillis;
+		this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("order-placement-"));
+		for (int i = 0; i < threads; i++) {
+			executor.execute(this::run);
+		}
+	}
+
+	/**
+	 * Stops the worker threads. Orders still in the queue stay pending until they are recovered.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Queues a pending order for validation, or validates it on the calling thread if the queue is full.
+	 *
+	 * @param orderId the ID of the pending order
+	 * @param productIds the IDs of the products of the order
+	 * @param credentials the credential headers forwarded to the product service
+	 */
+	public void submit(Long orderId, List<Long> productIds, HttpHeaders credentials) {
+		if (!queuedOrderIds.add(orderId)) {
+			return;
+		}
+		PendingOrder pendingOrder = new PendingOrder(orderId, productIds, credentials);
+		if (!queue.offer(pendingOrder)) {
+			try {
+				process(List.of(pendingOrder)).forEach(this::reject);
+			} catch (RuntimeException e) {
+				LOGGER.error("Could not decide pending order {}, leaving it to the recovery", orderId, e);
+				queuedOrderIds.remove(orderId);
+			}
+		}
+	}
+
+	/**
+	 * Returns a future that completes once the given order is no longer pending.
+	 * Cancelling the future stops waiting for the decision.
+	 *
+	 * @param orderId the ID of the order
+	 * @return the future, already completed if the order is not pending or does not exist
+	 */
+	public CompletableFuture<Void> awaitDecision(Long orderId) {
+		CompletableFuture<Void> decision = new CompletableFuture<>();
+		decisions.compute(orderId, (id, waiting) -> {
+			Set<CompletableFuture<Void>> updated = waiting != null ? waiting : ConcurrentHashMap.newKeySet();
+			updated.add(decision);
+			return updated;
+		});
+		decision.whenComplete((result, e) -> decisions.computeIfPresent(orderId, (id, waiting) -> {
+			waiting.remove(decision);
+			return waiting.isEmpty() ? null : waiting;
+		}));
+		// Checked after registering, so a decision made in between is not missed
+		if (orderRepository.findStatusById(orderId).filter(OrderStatus.PENDING::equals).isEmpty()) {
+			decision.complete(null);
+		}
+		return decision;
+	}
+
+	/**
+	 * Queues all pending orders not queued yet, such as the orders still pending when the service last stopped.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void recoverPendingOrders() {
+		requeue(findUnqueuedPendingOrderIds());
+	}
+
+	/**
+	 * Queues the pending orders that were not queued at this and the previous sweep, such as orders whose
+	 * decision failed. Orders pending for a shorter time are left to the instance that accepted them.
+	 */
+	@Scheduled(initialDelayString = "${order-placement.sweep-interval-ms:60000}",
+			fixedDelayString = "${order-placement.sweep-interval-ms:60000}")
+	public synchronized void sweepPendingOrders() {
+		Set<Long> unqueued = findUnqueuedPendingOrderIds();
+		List<Long> stale = unqueued.stream().filter(unqueuedAtLastSweep::contains).toList();
+		unqueuedAtLastSweep = unqueued;
+		requeue(stale);
+	}
+
+	/**
+	 * Finds the IDs of the pending orders that are not queued by this instance.
+	 *
+	 * @return the IDs of the orders
+	 */
+	private Set<Long> findUnqueuedPendingOrderIds() {
+		Set<Long> orderIds = new HashSet<>();
+		List<Long> page;
+		Long after = 0L;
+		do {
+			page = orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, after, Pageable.ofSize(batchSize));
+			page.stream().filter(orderId -> !queuedOrderIds.contains(orderId)).forEach(orderIds::add);
+			after = page.isEmpty() ? after : page.get(page.size() - 1);
+		} while (page.size() == batchSize);
+		return orderIds;
+	}
+
+	/**
+	 * Queues the given pending orders again, stopping when the queue is full, so the remaining orders are
+	 * recovered by a later sweep.
+	 *
+	 * @param orderIds the IDs of the orders
+	 */
+	private void requeue(Collection<Long> orderIds) {
+		if (orderIds.isEmpty()) {
+			return;
+		}
+		HttpHeaders credentials;
+		try {
+			credentials = serviceCredentials.create();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Could not recover {} pending orders: {}", orderIds.size(), e.getMessage());
+			return;
+		}
+		LOGGER.info("Recovering {} pending orders", orderIds.size());
+		List<Long> ids = List.copyOf(orderIds);
+		for (int from = 0; from < ids.size(); from += batchSize) {
+			List<Long> page = ids.subList(from, Math.min(from + batchSize, ids.size()));
+			for (Order order : orderRepository.findByIdInOrderByIdAsc(page)) {
+				if (order.getStatus() != OrderStatus.PENDING || !queuedOrderIds.add(order.getId())) {
+					continue;
+				}
+				if (!queue.offer(new PendingOrder(order.getId(), order.getProductIds(), credentials))) {
+					queuedOrderIds.remove(order.getId());
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes batches of pending orders off the queue until the worker is shut down.
+	 * Orders that could not be validated are queued again after the retry delay.
+	 */
+	private void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				List<PendingOrder> batch = new ArrayList<>(batchSize);
+				batch.add(queue.take());
+				queue.drainTo(batch, batchSize - 1);
+
+				List<PendingOrder> failed;
+				try {
+					failed = process(batch);
+				} catch (RuntimeException e) {
+					// Keep the worker alive and retry the batch; orders already decided are not decided again
+					LOGGER.error("Could not decide {} pending orders", batch.size(), e);
+					failed = batch;
+				}
+				if (!failed.isEmpty()) {
+					Thread.sleep(retryDelayMillis);
+					failed.forEach(this::retry);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queues an order that could not be decided again, or rejects it once it has used up its attempts or the
+	 * queue is full. If it cannot be rejected either, it is left to the recovery.
+	 *
+	 * @param pendingOrder the pending order
+	 */
+	private void retry(PendingOrder pendingOrder) {
+		if (++pendingOrder.attempts < maxAttempts && queue.offer(pendingOrder)) {
+			return;
+		}
+		try {
+			reject(pendingOrder);
+		} catch (RuntimeException e) {
+			LOGGER.error("Could not reject pending order {}, leaving it to the recovery", pendingOrder.orderId, e);
+			queuedOrderIds.remove(pendingOrder.orderId);
+		}
+	}
+
+	/**
+	 * Validates the products of a batch of pending orders and decides each order.
+	 *
+	 * @param batch the pending orders
+	 * @return the orders that could not be validated because the product service is unavailable
+	 */
+	private List<PendingOrder> process(List<PendingOrder> batch) {
+		Set<Long> productIds = new LinkedHashSet<>();
+		batch.forEach(pendingOrder -> productIds.addAll(pendingOrder.productIds));
+
+		Set<Long> availableProductIds;
+		try {
+			availableProductIds = productClient.findAllById(productIds, batch.get(0).credentials).keySet();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Could not validate {} pending orders: {}", batch.size(), e.getMessage());
+			return batch;
+		}
+
+		for (PendingOrder pendingOrder : batch) {
+			Set<Long> missingProductIds = new LinkedHashSet<>(pendingOrder.productIds);
+			missingProductIds.removeAll(availableProductIds);
+			if (missingProductIds.isEmpty()) {
+				decide(pendingOrder.orderId, OrderStatus.CONFIRMED, null);
+			} else {
+				decide(pendingOrder.orderId, OrderStatus.REJECTED, PRODUCTS_NOT_AVAILABLE_REASON + missingProductIds);
+			}
+		}
+		return List.of();
+	}
+
+	/**
+	 * Rejects an order whose products could not be validated.
+	 *
+	 * @param pendingOrder the pending order
+	 */
+	private void reject(PendingOrder pendingOrder) {
+		decide(pendingOrder.orderId, OrderStatus.REJECTED, PRODUCT_SERVICE_UNAVAILABLE_REASON);
+	}
+
+	/**
+	 * Moves a pending order to its final status and completes the futures waiting for it.
+	 * The change is recorded in the outbox only if the order was still pending.
+	 *
+	 * @param orderId the ID of the order
+	 * @param status the final status
+	 * @param reason the reason for the status, or null
+	 */
+	private void decide(Long orderId, OrderStatus status, String reason) {
+		transactionTemplate.executeWithoutResult(transaction -> {
+			if (orderRepository.updateStatus(orderId, OrderStatus.PENDING, status, reason) > 0) {
+				outboxEventRepository.append(OrderServiceImpl.AGGREGATE_TYPE, orderId, ChangeType.SAVED);
+			}
+		});
+		queuedOrderIds.remove(orderId);
+		Set<CompletableFuture<Void>> waiting = decisions.remove(orderId);
+		if (waiting != null) {
+			waiting.forEach(decision -> decision.complete(null));
+		}
+	}
+
+	/**
+	 * An order waiting for validation.
+	 */
+	private static final class PendingOrder {
+
+		private final Long orderId;
+		private final List<Long> productIds;
+		private final HttpHeaders credentials;
+		private int attempts;
+
+		private PendingOrder(Long orderId, List<Long> productIds, HttpHeaders credentials) {
+			this.orderId = orderId;
+			this.productIds = List.copyOf(productIds);
+			this.credentials = credentials;
+		}
+	}
+}
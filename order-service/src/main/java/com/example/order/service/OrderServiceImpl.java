@@ -1,61 +1,158 @@
 package com.example.order.service;
 
+import com.example.order.client.ProductClient;
+import com.example.order.exception.ProductNotAvailableException;
+import com.example.order.exception.ProductServiceUnavailableException;
+import com.example.order.model.ChangeType;
 import com.example.order.model.Order;
-import com.example.order.model.Product;
+import com.example.order.model.OrderImportResult;
+import com.example.order.model.OrderStatus;
 import com.example.order.repository.OrderRepository;
-import com.example.order.security.SecurityConstants;
+import com.example.order.repository.OutboxEventRepository;
 import com.example.order.service.interfaces.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service implementation for managing orders.
  * This class handles the business logic related to orders,
  * including creating, retrieving, and deleting orders.
+ * Every change is recorded in the outbox within the transaction of the change and relayed to subscribers by the
+ * {@link com.example.order.event.OutboxRelay}.
  */
 @Service
 public class OrderServiceImpl implements OrderService {
 
+	/**
+	 * Aggregate type of the outbox events of orders.
+	 */
+	public static final String AGGREGATE_TYPE = "order";
+
+	// Order IDs are generated starting from 1, so the first page starts after 0
+	private static final long FIRST_PAGE_CURSOR = 0L;
+
 	@Autowired
 	private OrderRepository orderRepository;
 
 	@Autowired
-	private RestTemplate restTemplate;
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ProductClient productClient;
+
+	@Autowired
+	private OrderOwnerCache orderOwnerCache;
+
+	@Autowired
+	private OrderPlacementWorker orderPlacementWorker;
+
+	@Value("${order-import.chunk-size:1000}")
+	private int importChunkSize;
 
 	/**
-	 * Saves an order. Before saving, it validates each product in the order
-	 * by calling the product service to check if the product is available.
+	 * Saves an order. Before saving, it validates all products in the order
+	 * with batched, concurrent calls to the product service, outside of the transaction saving the order.
 	 *
 	 * @param order the order to save
-	 * @param authorizationHeader the authorization header containing the JWT token
+	 * @param credentials the credential headers forwarded to the product service
 	 * @return the saved order
-	 * @throws RuntimeException if a product in the order is not available
+	 * @throws ProductNotAvailableException if one or more products in the order are not available
+	 * @throws com.example.order.exception.ProductServiceUnavailableException if the product service cannot be reached
 	 */
-	public Order save(Order order, String authorizationHeader) {
-		HttpHeaders headers = new HttpHeaders();
-		headers.set(SecurityConstants.JWT_HEADER_STRING, authorizationHeader);
-
-		order.getProductIds().forEach(productId -> {
-			HttpEntity<String> entity = new HttpEntity<>(headers);
-
-			ResponseEntity<Product> response = restTemplate.exchange(
-					SecurityConstants.PRODUCT_SERVICE_URL + productId,
-					HttpMethod.GET,
-					entity,
-					Product.class
-			);
-
-			if (response.getStatusCode() != HttpStatus.OK) {
-				throw new RuntimeException("Product not available");
+	public Order save(Order order, HttpHeaders credentials) {
+		Set<Long> missingProductIds = new LinkedHashSet<>(order.getProductIds());
+		missingProductIds.removeAll(productClient.findAllById(missingProductIds, credentials).keySet());
+
+		if (!missingProductIds.isEmpty()) {
+			throw new ProductNotAvailableException(missingProductIds);
+		}
+
+		order.setStatus(OrderStatus.CONFIRMED);
+		order.setStatusReason(null);
+		Order savedOrder = saveAndRecordChange(order);
+		orderOwnerCache.put(savedOrder.getId(), savedOrder.getUsername());
+		return savedOrder;
+	}
+
+	/**
+	 * Saves an order as pending and hands it to the {@link OrderPlacementWorker}, which validates its products
+	 * and confirms or rejects it once the pending order is committed.
+	 *
+	 * @param order the order to place
+	 * @param credentials the credential headers forwarded to the product service
+	 * @return the pending order
+	 */
+	public Order placeAsync(Order order, HttpHeaders credentials) {
+		order.setStatus(OrderStatus.PENDING);
+		order.setStatusReason(null);
+		Order savedOrder = saveAndRecordChange(order);
+		orderOwnerCache.put(savedOrder.getId(), savedOrder.getUsername());
+		orderPlacementWorker.submit(savedOrder.getId(), savedOrder.getProductIds(), credentials);
+		return savedOrder;
+	}
+
+	/**
+	 * Imports many orders of one user, reading, validating and saving them one chunk of {@code importChunkSize}
+	 * orders at a time, so memory use does not grow with the size of the import.
+	 * <p>
+	 * The product IDs of a whole chunk are validated with a single lookup, and repeated product IDs of later
+	 * chunks are served from the {@link com.example.order.client.ProductCache}. Orders with unavailable products
+	 * are rejected without being saved; the other orders of the chunk are inserted in JDBC batches in a single
+	 * transaction together with their outbox events. If the product service is unavailable, the orders of the
+	 * chunk are rejected and the import continues with the next chunk.
+	 * </p>
+	 *
+	 * @param orders the orders to import, read as they are consumed
+	 * @param username the username of the user placing the orders
+	 * @param credentials the credential headers forwarded to the product service
+	 * @param results the consumer of the result of every order, in the order of the input
+	 */
+	public void importOrders(Iterator<Order> orders, String username, HttpHeaders credentials,
+			Consumer<OrderImportResult> results) {
+		int index = 0;
+		while (orders.hasNext()) {
+			List<Order> chunk = new ArrayList<>(importChunkSize);
+			while (chunk.size() < importChunkSize && orders.hasNext()) {
+				Order order = orders.next();
+				order.setId(null);
+				order.setUsername(username);
+				order.setStatus(OrderStatus.CONFIRMED);
+				order.setStatusReason(null);
+				if (order.getProductIds() == null) {
+					order.setProductIds(new ArrayList<>());
+				}
+				chunk.add(order);
 			}
-		});
+			importChunk(chunk, index, credentials).forEach(results);
+			index += chunk.size();
+		}
+	}
 
-		return orderRepository.save(order);
+	/**
+	 * Waits for the decision on a pending order.
+	 *
+	 * @param id the ID of the order
+	 * @return a future completing once the order is confirmed or rejected, already completed if it is not pending
+	 */
+	public CompletableFuture<Void> awaitDecision(Long id) {
+		return orderPlacementWorker.awaitDecision(id);
 	}
 
 	/**
@@ -67,6 +164,18 @@ public class OrderServiceImpl implements OrderService {
 		return orderRepository.findAll();
 	}
 
+	/**
+	 * Retrieves a page of orders ordered by ID. The IDs of the page are looked up first,
+	 * then the orders and their product IDs are loaded with a single query.
+	 *
+	 * @param after the ID of the last order of the previous page, or null for the first page
+	 * @param limit the maximum number of orders to retrieve
+	 * @return the orders following the given ID
+	 */
+	public List<Order> findPage(Long after, int limit) {
+		return findByIds(orderRepository.findIdsAfter(after == null ? FIRST_PAGE_CURSOR : after, PageRequest.ofSize(limit)));
+	}
+
 	/**
 	 * Retrieves an order by its ID.
 	 *
@@ -78,12 +187,25 @@ public class OrderServiceImpl implements OrderService {
 	}
 
 	/**
-	 * Deletes an order by its ID.
+	 * Finds the username of the owner of an order, served from the {@link OrderOwnerCache}.
+	 *
+	 * @param id the ID of the order
+	 * @return an Optional containing the username, or empty if the order does not exist
+	 */
+	public Optional<String> findOwnerById(Long id) {
+		return orderOwnerCache.getOwner(id);
+	}
+
+	/**
+	 * Deletes an order by its ID, records the change in the outbox and evicts its cached owner.
 	 *
 	 * @param id the ID of the order to delete
 	 */
+	@Transactional
 	public void deleteById(Long id) {
 		orderRepository.deleteById(id);
+		outboxEventRepository.append(AGGREGATE_TYPE, id, ChangeType.DELETED);
+		orderOwnerCache.invalidate(id);
 	}
 
 	/**
@@ -95,4 +217,93 @@ public class OrderServiceImpl implements OrderService {
 	public List<Order> findByUserId(String username) {
 		return orderRepository.findByUsername(username);
 	}
+
+	/**
+	 * Retrieves a page of the orders of a user ordered by ID. The IDs of the page are looked up
+	 * through the {@code (username, id)} index, then the orders and their product IDs are loaded with a single query.
+	 *
+	 * @param username the username of the user
+	 * @param after the ID of the last order of the previous page, or null for the first page
+	 * @param limit the maximum number of orders to retrieve
+	 * @return the orders of the user following the given ID
+	 */
+	public List<Order> findPageByUserId(String username, Long after, int limit) {
+		return findByIds(orderRepository.findIdsByUsernameAfter(username, after == null ? FIRST_PAGE_CURSOR : after, PageRequest.ofSize(limit)));
+	}
+
+	/**
+	 * Saves an order and records the change in the outbox in a single transaction.
+	 *
+	 * @param order the order to save
+	 * @return the saved order
+	 */
+	private Order saveAndRecordChange(Order order) {
+		return transactionTemplate.execute(status -> {
+			Order savedOrder = orderRepository.save(order);
+			outboxEventRepository.append(AGGREGATE_TYPE, savedOrder.getId(), ChangeType.SAVED);
+			return savedOrder;
+		});
+	}
+
+	/**
+	 * Validates the products of a chunk of imported orders and saves the orders whose products are available.
+	 *
+	 * @param chunk the orders of the chunk
+	 * @param firstIndex the index of the first order of the chunk in the import
+	 * @param credentials the credential headers forwarded to the product service
+	 * @return the results of the orders of the chunk
+	 */
+	private List<OrderImportResult> importChunk(List<Order> chunk, int firstIndex, HttpHeaders credentials) {
+		List<OrderImportResult> results = new ArrayList<>(chunk.size());
+		Set<Long> productIds = new LinkedHashSet<>();
+		chunk.forEach(order -> productIds.addAll(order.getProductIds()));
+
+		Set<Long> availableProductIds;
+		try {
+			availableProductIds = productClient.findAllById(productIds, credentials).keySet();
+		} catch (ProductServiceUnavailableException e) {
+			for (int i = 0; i < chunk.size(); i++) {
+				results.add(new OrderImportResult(firstIndex + i, null, OrderStatus.REJECTED,
+						OrderPlacementWorker.PRODUCT_SERVICE_UNAVAILABLE_REASON));
+			}
+			return results;
+		}
+
+		List<Order> acceptedOrders = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			Order order = chunk.get(i);
+			Set<Long> missingProductIds = new LinkedHashSet<>(order.getProductIds());
+			missingProductIds.removeAll(availableProductIds);
+			if (missingProductIds.isEmpty()) {
+				acceptedOrders.add(order);
+				results.add(new OrderImportResult(firstIndex + i, null, OrderStatus.CONFIRMED, null));
+			} else {
+				results.add(new OrderImportResult(firstIndex + i, null, OrderStatus.REJECTED,
+						OrderPlacementWorker.PRODUCTS_NOT_AVAILABLE_REASON + missingProductIds));
+			}
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			orderRepository.saveAll(acceptedOrders);
+			acceptedOrders.forEach(order -> outboxEventRepository.append(AGGREGATE_TYPE, order.getId(), ChangeType.SAVED));
+		});
+		for (int i = 0; i < chunk.size(); i++) {
+			Order order = chunk.get(i);
+			if (order.getId() != null) {
+				results.get(i).setId(order.getId());
+				orderOwnerCache.put(order.getId(), order.getUsername());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Loads the orders with the given IDs together with their product IDs.
+	 *
+	 * @param ids the IDs of the orders
+	 * @return the orders ordered by ID
+	 */
+	private List<Order> findByIds(List<Long> ids) {
+		return ids.isEmpty() ? List.of() : orderRepository.findByIdInOrderByIdAsc(ids);
+	}
 }
@@ -1,9 +1,14 @@
 package com.example.order.service.interfaces;
 
 import com.example.order.model.Order;
+import com.example.order.model.OrderImportResult;
+import org.springframework.http.HttpHeaders;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 /**
@@ -16,11 +21,38 @@ public interface OrderService
 	 * Saves an order.
 	 *
 	 * @param order               the order to be saved
-	 * @param authorizationHeader the authorization header for accessing product information
+	 * @param credentials         the credential headers for accessing product information
 	 * @return the saved order
-	 * @throws RuntimeException if the product is not available
+	 * @throws com.example.order.exception.ProductNotAvailableException if a product is not available
 	 */
-	Order save(Order order, String authorizationHeader);
+	Order save(Order order, HttpHeaders credentials);
+
+	/**
+	 * Saves an order as pending and validates its products in the background.
+	 *
+	 * @param order               the order to be placed
+	 * @param credentials         the credential headers for accessing product information
+	 * @return the pending order
+	 */
+	Order placeAsync(Order order, HttpHeaders credentials);
+
+	/**
+	 * Imports many orders of one user, validating and saving them in chunks.
+	 *
+	 * @param orders              the orders to import, read as they are consumed
+	 * @param username            the username of the user placing the orders
+	 * @param credentials         the credential headers for accessing product information
+	 * @param results             the consumer of the result of every order, in the order of the input
+	 */
+	void importOrders(Iterator<Order> orders, String username, HttpHeaders credentials, Consumer<OrderImportResult> results);
+
+	/**
+	 * Waits for the decision on a pending order.
+	 *
+	 * @param id the ID of the order
+	 * @return a future completing once the order is confirmed or rejected, already completed if it is not pending
+	 */
+	CompletableFuture<Void> awaitDecision(Long id);
 
 	/**
 	 * Retrieves all orders.
@@ -29,6 +61,15 @@ public interface OrderService
 	 */
 	List<Order> findAll();
 
+	/**
+	 * Retrieves a page of orders ordered by ID.
+	 *
+	 * @param after the ID of the last order of the previous page, or null for the first page
+	 * @param limit the maximum number of orders to retrieve
+	 * @return the orders following the given ID
+	 */
+	List<Order> findPage(Long after, int limit);
+
 	/**
 	 * Finds an order by its ID.
 	 *
@@ -37,6 +78,14 @@ public interface OrderService
 	 */
 	Optional<Order> findById(Long id);
 
+	/**
+	 * Finds the username of the owner of an order.
+	 *
+	 * @param id the ID of the order
+	 * @return an Optional containing the username, or empty if the order does not exist
+	 */
+	Optional<String> findOwnerById(Long id);
+
 	/**
 	 * Deletes an order by its ID.
 	 *
@@ -51,4 +100,14 @@ public interface OrderService
 	 * @return a list of orders associated with the given username
 	 */
 	List<Order> findByUserId(String username);
+
+	/**
+	 * Retrieves a page of the orders of a user ordered by ID.
+	 *
+	 * @param username the username of the user
+	 * @param after    the ID of the last order of the previous page, or null for the first page
+	 * @param limit    the maximum number of orders to retrieve
+	 * @return the orders of the user following the given ID
+	 */
+	List<Order> findPageByUserId(String username, Long after, int limit);
 }
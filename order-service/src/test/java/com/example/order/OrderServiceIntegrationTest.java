@@ -1,11 +1,34 @@
 package com.example.order;
 
+import com.example.order.client.ProductCache;
+import com.example.order.client.ProductServiceResilience;
+import com.example.order.event.ChangeBatchEvent;
+import com.example.order.event.OrderChangePublisher;
+import com.example.order.event.OutboxRelay;
+import com.example.order.exception.ProductServiceUnavailableException;
+import com.example.order.model.ChangeType;
 import com.example.order.model.Order;
+import com.example.order.model.OrderImportResult;
+import com.example.order.model.OrderStatus;
+import com.example.order.model.OutboxEvent;
 import com.example.order.model.Product;
 import com.example.order.repository.OrderRepository;
-import com.example.order.security.JwtUtil;
+import com.example.order.repository.OutboxEventRepository;
 import com.example.order.security.SecurityConstants;
+import com.example.order.service.OrderOwnerCache;
+import com.example.order.service.OrderPlacementWorker;
+import com.example.order.service.OrderServiceImpl;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtPrincipal;
+import com.example.security.JwtUtil;
+import com.example.security.ServiceCredentials;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,31 +36,68 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.UnorderedRequestExpectationManager;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * Integration tests for the Order Service.
  */
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = {
+		"security.identity.enabled=true",
+		"product-client.circuit-breaker.sliding-window-size=2",
+		"product-client.circuit-breaker.minimum-number-of-calls=2",
+		"product-client.retry.initial-interval-ms=1",
+		"outbox.relay-interval-ms=3600000",
+		"order-placement.sweep-interval-ms=3600000"
+})
 @AutoConfigureMockMvc
+@RecordApplicationEvents
 public class OrderServiceIntegrationTest {
 
 	private MockMvc mockMvc;
@@ -48,9 +108,42 @@ public class OrderServiceIntegrationTest {
 	@Autowired
 	private OrderRepository orderRepository;
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	@Autowired
 	private JwtUtil jwtUtil;
 
+	@Autowired
+	private IdentityHeaderCodec identityHeaderCodec;
+
+	@Autowired
+	private ProductCache productCache;
+
+	@Autowired
+	private OrderOwnerCache orderOwnerCache;
+
+	@Autowired
+	private ProductServiceResilience productServiceResilience;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private ServiceCredentials serviceCredentials;
+
+	@Autowired
+	private OrderPlacementWorker orderPlacementWorker;
+
+	@Autowired
+	private ApplicationEvents applicationEvents;
+
 	@MockBean
 	private RestTemplate restTemplate;
 
@@ -65,6 +158,10 @@ public class OrderServiceIntegrationTest {
 	public void setUp() {
 		mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
 		orderRepository.deleteAll();
+		outboxEventRepository.deleteAll();
+		productCache.invalidateAll();
+		orderOwnerCache.invalidateAll();
+		productServiceResilience.reset();
 		order = new Order();
 		order.setUsername("Tester");
 		order.setProductIds(Collections.singletonList(1L));
@@ -85,13 +182,7 @@ public class OrderServiceIntegrationTest {
 		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
 		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
 
-		ResponseEntity<Product> response = new ResponseEntity<>(HttpStatus.OK);
-		when(restTemplate.exchange(
-				SecurityConstants.PRODUCT_SERVICE_URL + 1L,
-				HttpMethod.GET,
-				new HttpEntity<>(headers),
-				Product.class
-		)).thenReturn(response);
+		mockAvailableProducts(1L);
 
 		mockMvc.perform(post("/orders")
 						.headers(headers)
@@ -103,6 +194,453 @@ public class OrderServiceIntegrationTest {
 				.andExpect(jsonPath("$.productIds", is(Arrays.asList(1))));
 	}
 
+	/**
+	 * Tests creating an order authenticated by the identity header of the API gateway instead of a JWT token,
+	 * and that the identity is forwarded to the product service.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderWithIdentityHeader() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Collections.singletonList(1L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String identity = identityHeaderCodec.encode(new JwtPrincipal("username",
+				Collections.singletonList(SecurityConstants.ROLE_USER), Instant.now().plusSeconds(60)));
+		headers.add(SecurityConstants.IDENTITY_HEADER_STRING, identity);
+
+		mockAvailableProducts(1L);
+
+		mockMvc.perform(post("/orders")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.username", is("username")));
+
+		verify(restTemplate).exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				argThat((HttpEntity<?> entity) -> identity.equals(entity.getHeaders().getFirst(SecurityConstants.IDENTITY_HEADER_STRING))),
+				eq(Product[].class)
+		);
+	}
+
+	/**
+	 * Tests that principals decoded from different tokens with the same roles share one authority list.
+	 */
+	@Test
+	public void principalsShareAuthoritiesOfSameRoles() {
+		String token = jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_USER));
+		String identity = identityHeaderCodec.encode(new JwtPrincipal("Tester",
+				Collections.singletonList(SecurityConstants.ROLE_USER), Instant.now().plusSeconds(60)));
+
+		JwtPrincipal fromToken = jwtUtil.getPrincipal(token);
+		JwtPrincipal fromIdentity = identityHeaderCodec.decode(identity);
+
+		assertSame(fromToken.getAuthorities(), fromIdentity.getAuthorities());
+		assertEquals("ROLE_" + SecurityConstants.ROLE_USER, fromToken.getAuthorities().get(0).getAuthority());
+	}
+
+	/**
+	 * Tests that creating an order with unknown products is rejected with the missing product IDs.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderWithMissingProducts() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Arrays.asList(1L, 2L, 2L, 3L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		mockMvc.perform(post("/orders")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.missingProductIds", is(Arrays.asList(2, 3))));
+	}
+
+	/**
+	 * Tests that repeated product IDs in an order are validated with a single product service call.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderWithRepeatedProducts() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Arrays.asList(1L, 1L, 1L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		mockMvc.perform(post("/orders")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.productIds", is(Arrays.asList(1, 1, 1))));
+
+		verify(restTemplate, times(1)).exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				any(HttpEntity.class),
+				eq(Product[].class)
+		);
+	}
+
+	/**
+	 * Tests that product lookups are served from the cache until the product service invalidates them.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderUsesProductCache() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Collections.singletonList(1L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("admin", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(post("/orders")
+							.headers(headers)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(objectMapper.writeValueAsString(newOrder)))
+					.andExpect(status().isCreated());
+		}
+
+		mockMvc.perform(delete("/internal/product-cache/{productId}", 1L)
+						.headers(headers))
+				.andExpect(status().isNoContent());
+
+		mockMvc.perform(post("/orders")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isCreated());
+
+		verify(restTemplate, times(2)).exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				any(HttpEntity.class),
+				eq(Product[].class)
+		);
+	}
+
+	/**
+	 * Tests that failed product lookups are retried until the circuit breaker opens, after which orders are
+	 * rejected without calling the product service.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderFailsFastWhenProductServiceIsDown() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Collections.singletonList(1L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		when(restTemplate.exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				any(HttpEntity.class),
+				eq(Product[].class)
+		)).thenThrow(new ResourceAccessException("Connection refused"));
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(post("/orders")
+							.headers(headers)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(objectMapper.writeValueAsString(newOrder)))
+					.andExpect(status().isServiceUnavailable());
+		}
+
+		// The first order is retried once, then the two failures open the circuit breaker
+		verify(restTemplate, times(2)).exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				any(HttpEntity.class),
+				eq(Product[].class)
+		);
+	}
+
+	/**
+	 * Tests that retries of a product service read stop at the deadline of the lookup.
+	 */
+	@Test
+	public void productServiceRetriesStopAtTheDeadline() {
+		AtomicInteger attempts = new AtomicInteger();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+		assertThrows(ProductServiceUnavailableException.class, () -> productServiceResilience.read(() -> {
+			attempts.incrementAndGet();
+			try {
+				Thread.sleep(150L);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new ResourceAccessException("Read timed out");
+		}, deadline));
+		assertEquals(1, attempts.get());
+
+		assertThrows(ProductServiceUnavailableException.class, () -> productServiceResilience.read(() -> {
+			attempts.incrementAndGet();
+			return "never called";
+		}, System.nanoTime()));
+		assertEquals(1, attempts.get());
+	}
+
+	/**
+	 * Tests that a full bulkhead does not count as a product service failure, so it does not open the circuit breaker.
+	 */
+	@Test
+	public void fullBulkheadDoesNotOpenTheCircuitBreaker() {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		for (int i = 0; i < 2; i++) {
+			assertThrows(ProductServiceUnavailableException.class, () -> productServiceResilience.read(() -> {
+				throw BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("test"));
+			}, deadline));
+		}
+
+		assertEquals("available", productServiceResilience.read(() -> "available", deadline));
+	}
+
+	/**
+	 * Tests that orders placed with {@code Prefer: respond-async} are accepted as pending, then confirmed or
+	 * rejected in the background, and that clients can long-poll for the decision.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void createOrderAsynchronously() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		Long confirmedId = placeAsync(1L, headers);
+		awaitOrder(confirmedId, headers)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status", is("CONFIRMED")));
+
+		Long rejectedId = placeAsync(2L, headers);
+		awaitOrder(rejectedId, headers)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status", is("REJECTED")))
+				.andExpect(jsonPath("$.statusReason", containsString("2")));
+	}
+
+	/**
+	 * Tests that pending orders missing from the queue, such as orders left pending by a restart, are recovered
+	 * at startup and by the sweep, and that cancelled waiters are not completed.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void pendingOrdersAreRecovered() throws Exception {
+		mockAvailableProducts(1L);
+		Long swept = savePendingOrder();
+
+		orderPlacementWorker.sweepPendingOrders();
+		assertEquals(Optional.of(OrderStatus.PENDING), orderRepository.findStatusById(swept));
+		CompletableFuture<Void> abandoned = orderPlacementWorker.awaitDecision(swept);
+		CompletableFuture<Void> waiting = orderPlacementWorker.awaitDecision(swept);
+		abandoned.cancel(false);
+
+		orderPlacementWorker.sweepPendingOrders();
+		waiting.get(5, TimeUnit.SECONDS);
+		assertTrue(abandoned.isCancelled());
+		assertEquals(Optional.of(OrderStatus.CONFIRMED), orderRepository.findStatusById(swept));
+
+		Long recovered = savePendingOrder();
+		orderPlacementWorker.recoverPendingOrders();
+		orderPlacementWorker.awaitDecision(recovered).get(5, TimeUnit.SECONDS);
+		assertEquals(Optional.of(OrderStatus.CONFIRMED), orderRepository.findStatusById(recovered));
+	}
+
+	/**
+	 * Tests importing orders in bulk from newline delimited JSON and from a JSON array, with a result line
+	 * per order and rejected orders not being saved.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void importOrdersInBulk() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("partner", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		MvcResult result = mockMvc.perform(post("/orders/bulk")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.accept(MediaType.APPLICATION_NDJSON)
+						.content("{\"productIds\":[1]}\n{\"productIds\":[1,2]}\n{\"productIds\":[1]}\n"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		List<OrderImportResult> results = objectMapper.readerFor(OrderImportResult.class)
+				.<OrderImportResult>readValues(result.getResponse().getContentAsString())
+				.readAll();
+		assertEquals(List.of(0, 1, 2), results.stream().map(OrderImportResult::getIndex).toList());
+		assertEquals(List.of(OrderStatus.CONFIRMED, OrderStatus.REJECTED, OrderStatus.CONFIRMED),
+				results.stream().map(OrderImportResult::getStatus).toList());
+		assertTrue(results.get(1).getStatusReason().contains("2"));
+		assertEquals(2, orderRepository.findByUsername("partner").size());
+		assertEquals("partner", orderRepository.findById(results.get(2).getId()).orElseThrow().getUsername());
+
+		mockMvc.perform(post("/orders/bulk")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_NDJSON)
+						.content("[{\"productIds\":[1]}]"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"index\":0")))
+				.andExpect(content().string(containsString("\"status\":\"CONFIRMED\"")));
+		assertEquals(3, orderRepository.findByUsername("partner").size());
+	}
+
+	/**
+	 * Tests that order changes are recorded in the outbox with the change itself and relayed to in-process
+	 * listeners in a single batch, after which the outbox is empty.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void orderChangesAreRelayedInBatches() throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Collections.singletonList(1L));
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("admin", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockAvailableProducts(1L);
+
+		MvcResult result = mockMvc.perform(post("/orders")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isCreated())
+				.andReturn();
+		Long createdId = objectMapper.readValue(result.getResponse().getContentAsString(), Order.class).getId();
+
+		mockMvc.perform(delete("/orders/{id}", order.getId())
+						.headers(headers))
+				.andExpect(status().isNoContent());
+
+		List<OutboxEvent> recorded = outboxEventRepository.findAll();
+		assertEquals(List.of(ChangeType.SAVED, ChangeType.DELETED), recorded.stream().map(OutboxEvent::getChangeType).toList());
+
+		outboxRelay.relay();
+
+		List<ChangeBatchEvent> batches = applicationEvents.stream(ChangeBatchEvent.class).toList();
+		assertEquals(1, batches.size());
+		assertEquals(List.of(createdId, order.getId()), batches.get(0).getAggregateIds(OrderServiceImpl.AGGREGATE_TYPE));
+		assertEquals(0, outboxEventRepository.count());
+	}
+
+	/**
+	 * Tests that order changes are pushed to each subscriber until it has received them. A subscriber rejecting
+	 * the changes is not pushed to again, while a failing subscriber keeps them in the outbox and is the only
+	 * subscriber they are pushed to again with the next pass.
+	 */
+	@Test
+	public void orderChangesAreRetriedPerSubscriber() {
+		MockServerRestTemplateCustomizer subscribers =
+				new MockServerRestTemplateCustomizer(UnorderedRequestExpectationManager.class);
+		OrderChangePublisher publisher = new OrderChangePublisher(
+				List.of("http://reporting/order-changes", "http://audit/order-changes", "http://legacy/order-changes"),
+				serviceCredentials, new RestTemplateBuilder(subscribers));
+		OutboxRelay relay = new OutboxRelay(outboxEventRepository,
+				event -> publisher.onChanges((ChangeBatchEvent) event), 500, 300000, 0);
+		MockRestServiceServer server = subscribers.getServer();
+		server.expect(requestTo("http://reporting/order-changes")).andRespond(withSuccess());
+		server.expect(requestTo("http://audit/order-changes")).andRespond(withServerError());
+		server.expect(requestTo("http://legacy/order-changes")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+		outboxEventRepository.append(OrderServiceImpl.AGGREGATE_TYPE, order.getId(), ChangeType.SAVED);
+
+		relay.relay();
+
+		server.verify();
+		assertEquals(1, outboxEventRepository.count());
+
+		server.reset();
+		server.expect(requestTo("http://audit/order-changes")).andRespond(withSuccess());
+
+		relay.relay();
+
+		server.verify();
+		assertEquals(0, outboxEventRepository.count());
+	}
+
+	/**
+	 * Tests that the product service can push a batch of product changes with its service credentials,
+	 * invalidating the cached products.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void productChangesArePushedWithServiceCredentials() throws Exception {
+		productCache.putAll(List.of(1L, 2L), Collections.emptyMap(), productCache.generation());
+		assertEquals(2, productCache.getAllPresent(List.of(1L, 2L)).size());
+
+		mockMvc.perform(post("/internal/product-cache/invalidations")
+						.headers(serviceCredentials.create())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(List.of(1L, 2L))))
+				.andExpect(status().isNoContent());
+
+		assertTrue(productCache.getAllPresent(List.of(1L, 2L)).isEmpty());
+	}
+
+	/**
+	 * Tests that a product lookup racing an invalidation does not write its possibly stale result back
+	 * into the cache.
+	 */
+	@Test
+	public void productLookupsRacingAnInvalidationAreNotCached() {
+		long lookupGeneration = productCache.generation();
+		productCache.invalidate(1L);
+		productCache.putAll(List.of(1L), Collections.emptyMap(), lookupGeneration);
+		assertTrue(productCache.getAllPresent(List.of(1L)).isEmpty());
+
+		productCache.putAll(List.of(1L), Collections.emptyMap(), productCache.generation());
+		assertEquals(1, productCache.getAllPresent(List.of(1L)).size());
+	}
+
+	/**
+	 * Tests that the connection pool of the product service client is bounded and monitored.
+	 */
+	@Test
+	public void productServiceConnectionPoolIsMonitored() {
+		assertEquals(200, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+				.tag("httpclient", "product-service")
+				.gauge()
+				.value());
+		assertEquals(50, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default")
+				.tag("httpclient", "product-service")
+				.gauge()
+				.value());
+	}
+
 	/**
 	 * Tests retrieving an order by its ID.
 	 *
@@ -141,6 +679,38 @@ public class OrderServiceIntegrationTest {
 				.andExpect(status().isForbidden());
 	}
 
+	/**
+	 * Tests that the ownership check is served from the owner cache, so reading an order
+	 * only loads the order itself once the owner is cached.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void getOrderByIdUsesOwnerCache() throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("Tester", Collections.singletonList(SecurityConstants.ROLE_USER));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		try {
+			mockMvc.perform(get("/orders/{id}", order.getId())
+							.headers(headers))
+					.andExpect(status().isOk());
+
+			statistics.clear();
+
+			mockMvc.perform(get("/orders/{id}", order.getId())
+							.headers(headers))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.username", is("Tester")));
+
+			assertEquals(1, statistics.getPrepareStatementCount());
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
 	/**
 	 * Tests updating an order.
 	 *
@@ -154,13 +724,7 @@ public class OrderServiceIntegrationTest {
 		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("admin", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
 		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
 
-		ResponseEntity<Product> response = new ResponseEntity<>(HttpStatus.OK);
-		when(restTemplate.exchange(
-				SecurityConstants.PRODUCT_SERVICE_URL + 1L,
-				HttpMethod.GET,
-				new HttpEntity<>(headers),
-				Product.class
-		)).thenReturn(response);
+		mockAvailableProducts(1L);
 
 		mockMvc.perform(put("/orders/{id}", order.getId())
 						.headers(headers)
@@ -210,4 +774,157 @@ public class OrderServiceIntegrationTest {
 				.andExpect(jsonPath("$[0].username", is(order.getUsername())))
 				.andExpect(jsonPath("$[0].productIds[0]", is(order.getProductIds().get(0).intValue())));
 	}
+
+	/**
+	 * Tests that listing orders loads the orders and all their product IDs with a single statement,
+	 * regardless of the number of orders.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void getAllOrdersUsesSingleStatement() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			Order other = new Order();
+			other.setUsername("Other" + i);
+			other.setProductIds(Arrays.asList(1L, 2L));
+			orderRepository.save(other);
+		}
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("admin", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		try {
+			statistics.clear();
+
+			mockMvc.perform(get("/orders")
+							.headers(headers))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$", hasSize(6)))
+					.andExpect(jsonPath("$[*].productIds[0]", everyItem(is(1))));
+
+			assertEquals(1, statistics.getPrepareStatementCount());
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
+	/**
+	 * Tests paging through the orders of a user with a keyset cursor.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void getOrdersByUserIdPaged() throws Exception {
+		Order second = new Order();
+		second.setUsername(order.getUsername());
+		second.setProductIds(Arrays.asList(2L, 3L));
+		second = orderRepository.save(second);
+
+		Order third = new Order();
+		third.setUsername(order.getUsername());
+		third.setProductIds(Collections.singletonList(4L));
+		third = orderRepository.save(third);
+
+		HttpHeaders headers = new HttpHeaders();
+		String headerValue = SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("admin", Collections.singletonList(SecurityConstants.ROLE_ADMIN));
+		headers.add(SecurityConstants.JWT_HEADER_STRING, headerValue);
+
+		mockMvc.perform(get("/orders/user/{userId}", order.getUsername())
+						.param("limit", "2")
+						.headers(headers))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].id", is(order.getId().intValue())))
+				.andExpect(jsonPath("$[1].id", is(second.getId().intValue())))
+				.andExpect(jsonPath("$[1].productIds", is(Arrays.asList(2, 3))))
+				.andExpect(header().string(HttpHeaders.LINK, is("</orders/user/" + order.getUsername() + "?after=" + second.getId() + "&limit=2>; rel=\"next\"")));
+
+		mockMvc.perform(get("/orders/user/{userId}", order.getUsername())
+						.param("after", second.getId().toString())
+						.param("limit", "2")
+						.headers(headers))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].id", is(third.getId().intValue())))
+				.andExpect(header().doesNotExist(HttpHeaders.LINK));
+	}
+
+	/**
+	 * Places an order for a single product asynchronously.
+	 *
+	 * @param productId the ID of the product
+	 * @param headers the headers authenticating the request
+	 * @return the ID of the pending order
+	 * @throws Exception if an error occurs during the request
+	 */
+	private Long placeAsync(Long productId, HttpHeaders headers) throws Exception {
+		Order newOrder = new Order();
+		newOrder.setProductIds(Collections.singletonList(productId));
+
+		MvcResult result = mockMvc.perform(post("/orders")
+						.headers(headers)
+						.header("Prefer", "respond-async")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newOrder)))
+				.andExpect(status().isAccepted())
+				.andExpect(header().string(HttpHeaders.LOCATION, startsWith("/orders/")))
+				.andExpect(header().string("Preference-Applied", "respond-async"))
+				.andExpect(jsonPath("$.status", is("PENDING")))
+				.andReturn();
+		return objectMapper.readValue(result.getResponse().getContentAsString(), Order.class).getId();
+	}
+
+	/**
+	 * Saves a pending order for product 1 without queuing it, as if the service had stopped before deciding it.
+	 *
+	 * @return the ID of the pending order
+	 */
+	private Long savePendingOrder() {
+		Order pendingOrder = new Order();
+		pendingOrder.setUsername("Tester");
+		pendingOrder.setProductIds(Collections.singletonList(1L));
+		pendingOrder.setStatus(OrderStatus.PENDING);
+		return orderRepository.save(pendingOrder).getId();
+	}
+
+	/**
+	 * Long-polls an order until it is no longer pending.
+	 *
+	 * @param orderId the ID of the order
+	 * @param headers the headers authenticating the request
+	 * @return the result of the completed request
+	 * @throws Exception if an error occurs during the request
+	 */
+	private ResultActions awaitOrder(Long orderId, HttpHeaders headers) throws Exception {
+		MvcResult result = mockMvc.perform(get("/orders/{id}", orderId)
+						.param("wait", "5")
+						.headers(headers))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		result.getAsyncResult(5000);
+		return mockMvc.perform(asyncDispatch(result));
+	}
+
+	/**
+	 * Stubs the product service batch lookup to return products with the given IDs.
+	 *
+	 * @param productIds the IDs of the products that exist
+	 */
+	private void mockAvailableProducts(Long... productIds) {
+		Product[] products = Arrays.stream(productIds).map(productId -> {
+			Product product = new Product();
+			product.setId(productId);
+			return product;
+		}).toArray(Product[]::new);
+
+		when(restTemplate.exchange(
+				eq(SecurityConstants.PRODUCT_SERVICE_BATCH_URL),
+				eq(HttpMethod.POST),
+				any(HttpEntity.class),
+				eq(Product[].class)
+		)).thenReturn(new ResponseEntity<>(products, HttpStatus.OK));
+	}
 }
@@ -2,11 +2,19 @@ package com.example.product.controller;
 
 import com.example.product.model.Product;
 import com.example.product.service.interfaces.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -16,9 +24,16 @@ import java.util.List;
 @RequestMapping("/products")
 public class ProductController {
 
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final int MAX_BATCH_SIZE = 1000;
+
 	@Autowired
 	private ProductService productService;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	/**
 	 * Creates a new product.
 	 *
@@ -27,17 +42,70 @@ public class ProductController {
 	 */
 	@PostMapping
 	public ResponseEntity<Product> createProduct(@RequestBody Product product) {
-		return new ResponseEntity<>(productService.save(product), HttpStatus.CREATED);
+		Product savedProduct = productService.save(product);
+		return new ResponseEntity<>(savedProduct, HttpStatus.CREATED);
 	}
 
 	/**
-	 * Retrieves all products.
+	 * Retrieves all products, or a single page of products if {@code after} or {@code limit} is given.
+	 * <p>
+	 * Pages are ordered by ID and {@code after} is the ID of the last product of the previous page.
+	 * If the page is full, the {@code Link} header points to the next page with a path relative to the host.
+	 * </p>
 	 *
-	 * @return a list of all products with HTTP status 200 (OK)
+	 * @param after the ID of the last product of the previous page, or null for the first page
+	 * @param limit the maximum number of products per page, capped at 1000
+	 * @return the products with HTTP status 200 (OK), or 400 (Bad Request) if the limit is not positive
 	 */
 	@GetMapping
-	public ResponseEntity<List<Product>> getAllProducts() {
-		return ResponseEntity.ok(productService.findAll());
+	public ResponseEntity<List<Product>> getAllProducts(@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		if (after == null && limit == null) {
+			return ResponseEntity.ok(productService.findAll());
+		}
+		if (limit != null && limit < 1) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+		List<Product> page = productService.findPage(after, pageSize);
+		if (page.size() < pageSize) {
+			return ResponseEntity.ok(page);
+		}
+
+		// Relative, since behind the gateway the host of this request is not reachable by the client
+		String next = ServletUriComponentsBuilder.fromCurrentRequest()
+				.scheme(null)
+				.host(null)
+				.port(null)
+				.replaceQueryParam("after", page.get(page.size() - 1).getId())
+				.replaceQueryParam("limit", pageSize)
+				.toUriString();
+		return ResponseEntity.ok()
+				.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+				.body(page);
+	}
+
+	/**
+	 * Streams all products as newline delimited JSON, writing each product as soon as it is read from the database.
+	 * Selected with {@code Accept: application/x-ndjson}.
+	 *
+	 * @param response the HTTP response the products are written to
+	 * @throws IOException if writing the response fails
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void streamAllProducts(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		OutputStream out = response.getOutputStream();
+		productService.streamAll(product -> {
+			try {
+				out.write(objectMapper.writeValueAsBytes(product));
+				out.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		out.flush();
 	}
 
 	/**
@@ -53,6 +121,21 @@ public class ProductController {
 				.orElse(ResponseEntity.notFound().build());
 	}
 
+	/**
+	 * Retrieves all products with the given IDs in a single call.
+	 * IDs that do not match an existing product are omitted from the result.
+	 *
+	 * @param ids the IDs of the products to retrieve, at most 1000
+	 * @return the found products with HTTP status 200 (OK), or 400 (Bad Request) if more than 1000 IDs are given
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<List<Product>> getProductsByIds(@RequestBody List<Long> ids) {
+		if (ids.size() > MAX_BATCH_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(productService.findAllById(ids));
+	}
+
 	/**
 	 * Updates an existing product.
 	 *
@@ -63,7 +146,8 @@ public class ProductController {
 	@PutMapping("/{id}")
 	public ResponseEntity<Product> updateProduct(@PathVariable("id") Long id, @RequestBody Product product) {
 		product.setId(id);
-		return ResponseEntity.ok(productService.save(product));
+		Product savedProduct = productService.save(product);
+		return ResponseEntity.ok(savedProduct);
 	}
 
 	/**
@@ -79,13 +163,21 @@ public class ProductController {
 	}
 
 	/**
-	 * Searches for products by a query string.
+	 * Searches for products by a query string, most relevant first.
 	 *
 	 * @param query the query string to search for
-	 * @return a list of products matching the query with HTTP status 200 (OK)
+	 * @param page the zero-based page number
+	 * @param size the maximum number of products per page, capped at 1000
+	 * @return a list of products matching the query with HTTP status 200 (OK),
+	 * or 400 (Bad Request) if the page is negative or the size is not positive
 	 */
 	@GetMapping("/search")
-	public ResponseEntity<List<Product>> searchProducts(@RequestParam("query") String query) {
-		return ResponseEntity.ok(productService.search(query));
+	public ResponseEntity<List<Product>> searchProducts(@RequestParam("query") String query,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", defaultValue = "100") int size) {
+		if (page < 0 || size < 1) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(productService.search(query, page, Math.min(size, MAX_PAGE_SIZE)));
 	}
 }
@@ -0,0 +1,99 @@
+package com.example.product.event;
+
+import com.example.product.model.OutboxEvent;
+import com.example.product.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the outbox and publishes its changes to in-process subscribers.
+ * <p>
+ * Changes are recorded in the outbox in the same transaction as the change itself, so a change is relayed if and
+ * only if it was committed. The relay reads the outbox every {@code outbox.relay-interval-ms} in batches of up to
+ * {@code outbox.batch-size} events, publishes each batch as a {@link ChangeBatchEvent} and deletes it once all
+ * listeners have returned. Listeners run synchronously on the relay thread, so a batch is only deleted once it
+ * has been delivered. A listener that throws ends the pass and leaves the batch in the outbox to be published
+ * again after {@code outbox.retry-delay-ms}, so delivery is at least once and in order. Changes that are still
+ * not delivered once they are older than {@code outbox.max-retry-age-ms} are logged and deleted, so a listener
+ * that keeps failing holds up later changes for at most that long.
+ * </p>
+ */
+@Component
+public class OutboxRelay {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRelay.class);
+
+	private final OutboxEventRepository outboxEventRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final int batchSize;
+	private final Duration maxRetryAge;
+	private final long retryDelayNanos;
+	private long retryAt = System.nanoTime();
+
+	/**
+	 * Constructs an OutboxRelay.
+	 *
+	 * @param outboxEventRepository the repository of the outbox
+	 * @param eventPublisher the publisher the change batches are published with
+	 * @param batchSize the maximum number of changes per batch
+	 * @param maxRetryAgeMillis the age in milliseconds after which changes that could not be delivered are dropped
+	 * @param retryDelayMillis the time in milliseconds to wait after a failed pass before relaying again
+	 */
+	@Autowired
+	public OutboxRelay(OutboxEventRepository outboxEventRepository, ApplicationEventPublisher eventPublisher,
+			@Value("${outbox.batch-size:500}") int batchSize,
+			@Value("${outbox.max-retry-age-ms:300000}") long maxRetryAgeMillis,
+			@Value("${outbox.retry-delay-ms:5000}") long retryDelayMillis) {
+		this.outboxEventRepository = outboxEventRepository;
+		this.eventPublisher = eventPublisher;
+		this.batchSize = batchSize;
+		this.maxRetryAge = Duration.ofMillis(maxRetryAgeMillis);
+		this.retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(retryDelayMillis);
+	}
+
+	/**
+	 * Publishes all changes currently in the outbox and removes the delivered changes from it.
+	 */
+	@Scheduled(fixedDelayString = "${outbox.relay-interval-ms:200}")
+	public synchronized void relay() {
+		if (System.nanoTime() - retryAt < 0) {
+			return;
+		}
+		List<OutboxEvent> batch;
+		do {
+			batch = outboxEventRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+			if (batch.isEmpty()) {
+				return;
+			}
+			try {
+				eventPublisher.publishEvent(new ChangeBatchEvent(batch));
+			} catch (RuntimeException e) {
+				Instant expiry = Instant.now().minus(maxRetryAge);
+				List<OutboxEvent> expired = batch.stream()
+						.filter(change -> change.getCreatedAt().isBefore(expiry))
+						.toList();
+				if (!expired.isEmpty()) {
+					LOGGER.error("Dropping {} changes that could not be relayed within {}", expired.size(), maxRetryAge,
+							e);
+					outboxEventRepository.deleteAllInBatch(expired);
+				}
+				LOGGER.warn("Could not relay {} changes, retrying in {} ms: {}", batch.size() - expired.size(),
+						TimeUnit.NANOSECONDS.toMillis(retryDelayNanos), e.getMessage());
+				retryAt = System.nanoTime() + retryDelayNanos;
+				return;
+			}
+			outboxEventRepository.deleteAllInBatch(batch);
+		} while (batch.size() == batchSize);
+	}
+}
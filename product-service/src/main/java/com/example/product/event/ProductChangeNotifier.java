@@ -0,0 +1,95 @@
+package com.example.product.event;
+
+import com.example.product.security.SecurityConstants;
+import com.example.product.service.ProductServiceImpl;
+import com.example.security.ServiceCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Notifies every running order service instance about changed products,
+ * so they drop the products from their local product cache.
+ * <p>
+ * Each batch relayed from the outbox is pushed to every instance with a single request carrying the IDs of
+ * all changed products, authenticated with the {@link ServiceCredentials} of the product service. Notifications
+ * are sent on the relay thread and tracked per instance by {@link ChangePushes}: an instance that rejects a
+ * notification with a 4xx response is not notified again, and an instance that cannot be reached fails the relay,
+ * so the batch stays in the outbox and only the instances that were not notified yet are notified again. If the
+ * product service has no credentials of its own, which is the case with RS256 tokens and identity propagation
+ * disabled, notifications are skipped with a warning and the order service caches fall back to their TTL.
+ * </p>
+ */
+@Component
+public class ProductChangeNotifier {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProductChangeNotifier.class);
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	private final DiscoveryClient discoveryClient;
+	private final ServiceCredentials serviceCredentials;
+	private final RestTemplate restTemplate;
+	private final ChangePushes changePushes = new ChangePushes();
+
+	/**
+	 * Constructs a ProductChangeNotifier.
+	 *
+	 * @param discoveryClient the discovery client used to find the order service instances
+	 * @param serviceCredentials the credentials the product service authenticates with
+	 * @param restTemplateBuilder the builder for the RestTemplate calling the instances directly
+	 */
+	@Autowired
+	public ProductChangeNotifier(DiscoveryClient discoveryClient, ServiceCredentials serviceCredentials,
+			RestTemplateBuilder restTemplateBuilder) {
+		this.discoveryClient = discoveryClient;
+		this.serviceCredentials = serviceCredentials;
+		this.restTemplate = restTemplateBuilder
+				.setConnectTimeout(TIMEOUT)
+				.setReadTimeout(TIMEOUT)
+				.build();
+	}
+
+	/**
+	 * Invalidates the changed products in the cache of every order service instance that has not been notified yet.
+	 *
+	 * @param event the batch of changes relayed from the outbox
+	 * @throws IllegalStateException if an instance cannot be reached
+	 */
+	@EventListener
+	public void onChanges(ChangeBatchEvent event) {
+		if (event.getAggregateIds(ProductServiceImpl.AGGREGATE_TYPE).isEmpty()) {
+			return;
+		}
+
+		HttpHeaders headers;
+		try {
+			headers = serviceCredentials.create();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Not notifying the order service about {} product changes, the product service has no "
+					+ "credentials: {}", event.getChanges().size(), e.getMessage());
+			return;
+		}
+		headers.setContentType(MediaType.APPLICATION_JSON);
+
+		List<String> invalidationUrls = discoveryClient.getInstances(SecurityConstants.ORDER_SERVICE_ID).stream()
+				.map(instance -> instance.getUri() + SecurityConstants.ORDER_SERVICE_PRODUCT_INVALIDATIONS_PATH)
+				.toList();
+		changePushes.push(event.getChanges(), invalidationUrls, (invalidationUrl, changes) -> {
+			List<Long> productIds = new ChangeBatchEvent(changes).getAggregateIds(ProductServiceImpl.AGGREGATE_TYPE);
+			if (!productIds.isEmpty()) {
+				restTemplate.postForEntity(invalidationUrl, new HttpEntity<>(productIds, headers), Void.class);
+			}
+		});
+	}
+}
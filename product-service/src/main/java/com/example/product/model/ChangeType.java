@@ -0,0 +1,17 @@
+package com.example.product.model;
+
+/**
+ * Kind of change recorded in the outbox.
+ */
+public enum ChangeType
+{
+	/**
+	 * The entity was created or updated.
+	 */
+	SAVED,
+
+	/**
+	 * The entity was deleted.
+	 */
+	DELETED
+}
@@ -0,0 +1,74 @@
+package com.example.product.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(nullable = false)
+	private String aggregateType;
+	@Column(nullable = false)
+	private Long aggregateId;
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private ChangeType changeType;
+	@Column(nullable = false)
+	private Instant createdAt;
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public String getAggregateType()
+	{
+		return aggregateType;
+	}
+
+	public void setAggregateType(String aggregateType)
+	{
+		this.aggregateType = aggregateType;
+	}
+
+	public Long getAggregateId()
+	{
+		return aggregateId;
+	}
+
+	public void setAggregateId(Long aggregateId)
+	{
+		this.aggregateId = aggregateId;
+	}
+
+	public ChangeType getChangeType()
+	{
+		return changeType;
+	}
+
+	public void setChangeType(ChangeType changeType)
+	{
+		this.changeType = changeType;
+	}
+
+	public Instant getCreatedAt()
+	{
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt)
+	{
+		this.createdAt = createdAt;
+	}
+}
@@ -1,9 +1,14 @@
 package com.example.product.repository;
 
 import com.example.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for {@link Product} entities.
@@ -11,12 +16,29 @@ import java.util.List;
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
 	/**
-	 * Finds products by name, description, or category containing the specified keyword.
+	 * Finds the first products ordered by ID.
 	 *
-	 * @param name the name to search for
-	 * @param description the description to search for
-	 * @param category the category to search for
-	 * @return a list of products matching the search criteria
+	 * @param limit the maximum number of products to return
+	 * @return the first page of products
 	 */
-	List<Product> findByNameContainingOrDescriptionContainingOrCategoryContaining(String name, String description, String category);
+	List<Product> findAllByOrderByIdAsc(Limit limit);
+
+	/**
+	 * Finds the products following the given ID, ordered by ID.
+	 * The ID acts as a keyset cursor, so the database seeks to it through the primary key index
+	 * instead of skipping over all previous rows.
+	 *
+	 * @param id the ID of the last product of the previous page
+	 * @param limit the maximum number of products to return
+	 * @return the next page of products
+	 */
+	List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+	/**
+	 * Streams all products ordered by ID. The stream must be consumed and closed within a transaction.
+	 *
+	 * @return a stream of all products, read from the database in chunks of the fetch size
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	Stream<Product> streamAllByOrderByIdAsc();
 }
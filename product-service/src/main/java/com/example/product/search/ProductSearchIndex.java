@@ -0,0 +1,229 @@
+package com.example.product.search;
+
+import com.example.product.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the name, description and category of all products.
+ * <p>
+ * Fields are split into lower-cased tokens. Every token maps to the products containing it, weighted by the field
+ * it occurs in (name 3, category 2, description 1). A query matches the products that contain every query token,
+ * either exactly or as prefix of a longer token, and the products are ranked by the sum of their weights; exact
+ * matches count twice. The index is kept up to date by the product service on every save and delete.
+ * </p>
+ * <p>
+ * Unlike the former substring search in the database, a query word only matches at the start of a token, so
+ * "phone" finds "phones" but no longer "smartphone".
+ * </p>
+ * <p>
+ * The index lives in the memory of a single instance and only sees the changes made through that instance. When
+ * several product service instances share one database, an instance serves search results without the changes
+ * made through the other instances until it is restarted and rebuilds its index.
+ * </p>
+ */
+@Component
+public class ProductSearchIndex {
+
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final int NAME_WEIGHT = 3;
+	private static final int CATEGORY_WEIGHT = 2;
+	private static final int DESCRIPTION_WEIGHT = 1;
+	private static final int EXACT_MATCH_FACTOR = 2;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+	private final Map<Long, Set<String>> tokensByProduct = new HashMap<>();
+	private final Map<Long, Product> products = new HashMap<>();
+
+	/**
+	 * Adds the given product to the index, replacing a previously indexed version of it.
+	 *
+	 * @param product the product to index
+	 */
+	public void index(Product product) {
+		Map<String, Integer> weights = new HashMap<>();
+		addTokens(weights, product.getName(), NAME_WEIGHT);
+		addTokens(weights, product.getCategory(), CATEGORY_WEIGHT);
+		addTokens(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+		Product copy = copyOf(product);
+
+		lock.writeLock().lock();
+		try {
+			removeUnderLock(product.getId());
+			weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(product.getId(), weight));
+			tokensByProduct.put(product.getId(), weights.keySet());
+			products.put(product.getId(), copy);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the product with the given ID from the index.
+	 *
+	 * @param productId the ID of the product to remove
+	 */
+	public void remove(Long productId) {
+		lock.writeLock().lock();
+		try {
+			removeUnderLock(productId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes all products from the index.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			tokensByProduct.clear();
+			products.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches for the products matching all tokens of the given query, ordered by relevance.
+	 *
+	 * @param query the query string
+	 * @param page the zero-based page number
+	 * @param size the maximum number of products per page
+	 * @return the matching products of the requested page; empty if the query contains no tokens
+	 */
+	public List<Product> search(String query, int page, int size) {
+		List<String> queryTokens = tokenize(query);
+		if (queryTokens.isEmpty()) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			Map<Long, Integer> scores = null;
+			for (String queryToken : queryTokens) {
+				Map<Long, Integer> tokenScores = score(queryToken);
+				if (scores == null) {
+					scores = tokenScores;
+				} else {
+					scores.keySet().retainAll(tokenScores.keySet());
+					scores.replaceAll((productId, score) -> score + tokenScores.get(productId));
+				}
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+			ranked.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+
+			long from = (long) page * size;
+			List<Product> result = new ArrayList<>();
+			for (int i = (int) Math.min(from, ranked.size()); i < ranked.size() && result.size() < size; i++) {
+				result.add(products.get(ranked.get(i).getKey()));
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Scores the products containing the given token or a token starting with it. Must be called under the read lock.
+	 *
+	 * @param queryToken the query token
+	 * @return the scores of the matching products keyed by product ID
+	 */
+	private Map<Long, Integer> score(String queryToken) {
+		Map<Long, Integer> scores = new HashMap<>();
+		for (Map.Entry<String, Map<Long, Integer>> posting : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+			int factor = posting.getKey().equals(queryToken) ? EXACT_MATCH_FACTOR : 1;
+			posting.getValue().forEach((productId, weight) -> scores.merge(productId, weight * factor, Integer::sum));
+		}
+		return scores;
+	}
+
+	/**
+	 * Removes the product with the given ID from all postings. Must be called under the write lock.
+	 *
+	 * @param productId the ID of the product to remove
+	 */
+	private void removeUnderLock(Long productId) {
+		Set<String> tokens = tokensByProduct.remove(productId);
+		products.remove(productId);
+		if (tokens == null) {
+			return;
+		}
+		for (String token : tokens) {
+			Map<Long, Integer> productIds = postings.get(token);
+			productIds.remove(productId);
+			if (productIds.isEmpty()) {
+				postings.remove(token);
+			}
+		}
+	}
+
+	/**
+	 * Adds the tokens of the given text with the given weight, keeping the highest weight per token.
+	 *
+	 * @param weights the weights keyed by token
+	 * @param text the text to tokenize, may be null
+	 * @param weight the weight of the field the text belongs to
+	 */
+	private static void addTokens(Map<String, Integer> weights, String text, int weight) {
+		for (String token : tokenize(text)) {
+			weights.merge(token, weight, Math::max);
+		}
+	}
+
+	/**
+	 * Splits the given text into distinct lower-cased tokens of letters and digits.
+	 *
+	 * @param text the text to tokenize, may be null
+	 * @return the tokens in order of their first occurrence
+	 */
+	private static List<String> tokenize(String text) {
+		if (text == null) {
+			return List.of();
+		}
+		Set<String> tokens = new HashSet<>();
+		List<String> result = new ArrayList<>();
+		for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+			if (!token.isEmpty() && tokens.add(token)) {
+				result.add(token);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the given product, so later changes to the entity do not leak into the index.
+	 *
+	 * @param product the product to copy
+	 * @return the copy
+	 */
+	private static Product copyOf(Product product) {
+		Product copy = new Product();
+		copy.setId(product.getId());
+		copy.setName(product.getName());
+		copy.setDescription(product.getDescription());
+		copy.setCategory(product.getCategory());
+		return copy;
+	}
+}
@@ -1,41 +1,37 @@
 package com.example.product.security;
 
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtPrincipal;
+import com.example.security.JwtUtil;
+import com.example.security.servlet.AbstractJwtAuthorizationFilter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Filter responsible for JWT authorization.
- * Intercepts requests to validate the JWT token and set the security context.
+ * Intercepts requests to verify the JWT token once and store the decoded {@link JwtPrincipal} in the security context.
+ * When identity propagation is enabled, the signed identity header of the API gateway is accepted instead of the token.
  */
 @Component
-public class AuthorizationFilter extends OncePerRequestFilter {
+public class AuthorizationFilter extends AbstractJwtAuthorizationFilter {
 
 	private static final String UNAUTHORIZED_MESSAGE = "Unauthorized";
-	private static final String ROLE_PREFIX = "ROLE_";
-
-	private JwtUtil jwtUtil;
 
 	/**
-	 * Constructs an AuthorizationFilter with the specified JwtUtil.
+	 * Constructs an AuthorizationFilter with the specified JwtUtil and IdentityHeaderCodec.
 	 *
 	 * @param jwtUtil the utility class for handling JWT operations
+	 * @param identityHeaderCodec the codec for the signed identity header of the API gateway
 	 */
 	@Autowired
-	public AuthorizationFilter(JwtUtil jwtUtil) {
-		this.jwtUtil = jwtUtil;
+	public AuthorizationFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec) {
+		super(jwtUtil, identityHeaderCodec);
 	}
 
 	/**
@@ -50,35 +46,15 @@ public class AuthorizationFilter extends OncePerRequestFilter {
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
-		String token = resolveToken(request);
+		JwtPrincipal principal = resolvePrincipal(request);
 
-		if (token == null || !jwtUtil.validateToken(token)) {
+		if (principal == null) {
 			response.sendError(HttpServletResponse.SC_UNAUTHORIZED, UNAUTHORIZED_MESSAGE);
 			return;
 		}
 
-		String username = jwtUtil.getUsername(token);
-		List<String> roles = jwtUtil.getRoles(token);
-		List<GrantedAuthority> authorities = roles.stream()
-				.map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role))  // Prefix roles with "ROLE_"
-				.collect(Collectors.toList());
-		UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
-		SecurityContextHolder.getContext().setAuthentication(auth);
+		authenticate(principal);
 
 		filterChain.doFilter(request, response);
 	}
-
-	/**
-	 * Resolves the JWT token from the HTTP request header.
-	 *
-	 * @param request the HTTP request
-	 * @return the JWT token if present and valid, otherwise null
-	 */
-	private String resolveToken(HttpServletRequest request) {
-		String bearerToken = request.getHeader(SecurityConstants.JWT_HEADER_STRING);
-		if (bearerToken != null && bearerToken.startsWith(SecurityConstants.JWT_TOKEN_PREFIX)) {
-			return bearerToken.substring(SecurityConstants.JWT_TOKEN_PREFIX.length());
-		}
-		return null;
-	}
 }
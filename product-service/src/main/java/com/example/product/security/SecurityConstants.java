@@ -1,7 +1,12 @@
 package com.example.product.security;
 
+import com.example.security.CommonSecurityConstants;
+
 /**
  * Constants used for security configuration.
+ * <p>
+ * The values shared by all services are defined in {@link CommonSecurityConstants}.
+ * </p>
  */
 public final class SecurityConstants {
 
@@ -9,23 +14,28 @@ public final class SecurityConstants {
 	/**
 	 * Prefix for the JWT token.
 	 */
-	public static final String JWT_TOKEN_PREFIX = "Bearer ";
+	public static final String JWT_TOKEN_PREFIX = CommonSecurityConstants.JWT_TOKEN_PREFIX;
 
 	/**
 	 * Header string for the JWT token.
 	 */
-	public static final String JWT_HEADER_STRING = "Authorization";
+	public static final String JWT_HEADER_STRING = CommonSecurityConstants.JWT_HEADER_STRING;
+
+	/**
+	 * Header string for the signed identity propagated by the API gateway.
+	 */
+	public static final String IDENTITY_HEADER_STRING = CommonSecurityConstants.IDENTITY_HEADER_STRING;
 
 	// Role based constants
 	/**
 	 * Role constant for users.
 	 */
-	public static final String ROLE_USER = "USER";
+	public static final String ROLE_USER = CommonSecurityConstants.ROLE_USER;
 
 	/**
 	 * Role constant for administrators.
 	 */
-	public static final String ROLE_ADMIN = "ADMIN";
+	public static final String ROLE_ADMIN = CommonSecurityConstants.ROLE_ADMIN;
 
 	// URL patterns
 	/**
@@ -33,6 +43,22 @@ public final class SecurityConstants {
 	 */
 	public static final String PRODUCTS_URL = "/products/**";
 
+	/**
+	 * URL for the batch product lookup, available to every authenticated user.
+	 */
+	public static final String PRODUCTS_BATCH_URL = "/products/batch";
+
+	// Order service
+	/**
+	 * Service ID of the order service in the discovery server.
+	 */
+	public static final String ORDER_SERVICE_ID = "ORDER-SERVICE";
+
+	/**
+	 * Path of the order service endpoint invalidating a batch of cached products.
+	 */
+	public static final String ORDER_SERVICE_PRODUCT_INVALIDATIONS_PATH = "/internal/product-cache/invalidations";
+
 	/**
 	 * Private constructor to prevent instantiation.
 	 */
@@ -44,6 +44,7 @@ public class WebSecurityConfig {
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests((authz) -> authz
 						.requestMatchers(new AntPathRequestMatcher(SecurityConstants.PRODUCTS_URL, HttpMethod.GET.name())).permitAll()
+						.requestMatchers(new AntPathRequestMatcher(SecurityConstants.PRODUCTS_BATCH_URL, HttpMethod.POST.name())).authenticated()
 						.requestMatchers(new AntPathRequestMatcher(SecurityConstants.PRODUCTS_URL, HttpMethod.POST.name())).hasRole(SecurityConstants.ROLE_ADMIN)
 						.requestMatchers(new AntPathRequestMatcher(SecurityConstants.PRODUCTS_URL, HttpMethod.PUT.name())).hasRole(SecurityConstants.ROLE_ADMIN)
 						.requestMatchers(new AntPathRequestMatcher(SecurityConstants.PRODUCTS_URL, HttpMethod.DELETE.name())).hasRole(SecurityConstants.ROLE_ADMIN)
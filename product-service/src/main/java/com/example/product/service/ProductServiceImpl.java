@@ -1,32 +1,81 @@
 package com.example.product.service;
 
+import com.example.product.model.ChangeType;
 import com.example.product.model.Product;
+import com.example.product.repository.OutboxEventRepository;
 import com.example.product.repository.ProductRepository;
+import com.example.product.search.ProductSearchIndex;
 import com.example.product.service.interfaces.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing products.
+ * Every change is recorded in the outbox within the transaction of the change and relayed to subscribers by the
+ * {@link com.example.product.event.OutboxRelay}. The search index is updated once the change is committed, so
+ * searches never return changes that are rolled back.
  */
 @Service
 public class ProductServiceImpl implements ProductService {
 
+	/**
+	 * Aggregate type of the outbox events of products.
+	 */
+	public static final String AGGREGATE_TYPE = "product";
+
+	private static final int SEARCH_INDEX_PAGE_SIZE = 1000;
+
 	@Autowired
 	private ProductRepository productRepository;
 
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
 	/**
-	 * Saves a product.
+	 * Rebuilds the search index from the database at startup, reading the products page by page.
+	 */
+	@PostConstruct
+	public void rebuildSearchIndex() {
+		searchIndex.clear();
+		List<Product> page = productRepository.findAllByOrderByIdAsc(Limit.of(SEARCH_INDEX_PAGE_SIZE));
+		while (!page.isEmpty()) {
+			page.forEach(searchIndex::index);
+			page = productRepository.findByIdGreaterThanOrderByIdAsc(page.get(page.size() - 1).getId(), Limit.of(SEARCH_INDEX_PAGE_SIZE));
+		}
+	}
+
+	/**
+	 * Saves a product, records the change in the outbox and updates the product in the search index after commit.
 	 *
 	 * @param product the product to save
 	 * @return the saved product
 	 */
 	@Override
+	@Transactional
 	public Product save(Product product) {
-		return productRepository.save(product);
+		Product savedProduct = productRepository.save(product);
+		outboxEventRepository.append(AGGREGATE_TYPE, savedProduct.getId(), ChangeType.SAVED);
+		afterCommit(() -> searchIndex.index(savedProduct));
+		return savedProduct;
 	}
 
 	/**
@@ -39,6 +88,38 @@ public class ProductServiceImpl implements ProductService {
 		return productRepository.findAll();
 	}
 
+	/**
+	 * Retrieves a page of products ordered by ID, using the ID of the previous page as keyset cursor.
+	 *
+	 * @param after the ID of the last product of the previous page, or null for the first page
+	 * @param limit the maximum number of products to retrieve
+	 * @return the products following the given ID
+	 */
+	@Override
+	public List<Product> findPage(Long after, int limit) {
+		if (after == null) {
+			return productRepository.findAllByOrderByIdAsc(Limit.of(limit));
+		}
+		return productRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+	}
+
+	/**
+	 * Passes all products ordered by ID to the given consumer as they are read from the database.
+	 * Each product is detached once consumed, so the persistence context does not grow with the catalog.
+	 *
+	 * @param consumer the consumer of the products
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void streamAll(Consumer<Product> consumer) {
+		try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+			products.forEach(product -> {
+				consumer.accept(product);
+				entityManager.detach(product);
+			});
+		}
+	}
+
 	/**
 	 * Retrieves a product by its ID.
 	 *
@@ -51,23 +132,58 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	/**
-	 * Deletes a product by its ID.
+	 * Retrieves all products with the given IDs.
+	 *
+	 * @param ids the IDs of the products to retrieve
+	 * @return a list of the found products; IDs without a matching product are omitted
+	 */
+	@Override
+	public List<Product> findAllById(Collection<Long> ids) {
+		return productRepository.findAllById(ids);
+	}
+
+	/**
+	 * Deletes a product by its ID, records the change in the outbox and removes the product from the search index
+	 * after commit.
 	 *
 	 * @param id the ID of the product to delete
 	 */
 	@Override
+	@Transactional
 	public void deleteById(Long id) {
 		productRepository.deleteById(id);
+		outboxEventRepository.append(AGGREGATE_TYPE, id, ChangeType.DELETED);
+		afterCommit(() -> searchIndex.remove(id));
 	}
 
 	/**
-	 * Searches for products by a query string.
+	 * Searches for products by a query string using the in-memory search index.
 	 *
 	 * @param query the query string to search for
-	 * @return a list of products matching the search criteria
+	 * @param page the zero-based page number
+	 * @param size the maximum number of products per page
+	 * @return the products matching all words of the query, most relevant first
 	 */
 	@Override
-	public List<Product> search(String query) {
-		return productRepository.findByNameContainingOrDescriptionContainingOrCategoryContaining(query, query, query);
+	public List<Product> search(String query, int page, int size) {
+		return searchIndex.search(query, page, size);
+	}
+
+	/**
+	 * Runs an action once the current transaction has committed, or right away if there is no transaction.
+	 *
+	 * @param action the action to run
+	 */
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
 	}
 }
@@ -2,8 +2,10 @@ package com.example.product.service.interfaces;
 
 import com.example.product.model.Product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing products.
@@ -25,6 +27,23 @@ public interface ProductService {
 	 */
 	List<Product> findAll();
 
+	/**
+	 * Retrieves a page of products ordered by ID.
+	 *
+	 * @param after the ID of the last product of the previous page, or null for the first page
+	 * @param limit the maximum number of products to retrieve
+	 * @return the products following the given ID
+	 */
+	List<Product> findPage(Long after, int limit);
+
+	/**
+	 * Passes all products ordered by ID to the given consumer as they are read from the database,
+	 * without holding the whole catalog in memory.
+	 *
+	 * @param consumer the consumer of the products
+	 */
+	void streamAll(Consumer<Product> consumer);
+
 	/**
 	 * Retrieves a product by its ID.
 	 *
@@ -33,6 +52,14 @@ public interface ProductService {
 	 */
 	Optional<Product> findById(Long id);
 
+	/**
+	 * Retrieves all products with the given IDs.
+	 *
+	 * @param ids the IDs of the products to retrieve
+	 * @return a list of the found products; IDs without a matching product are omitted
+	 */
+	List<Product> findAllById(Collection<Long> ids);
+
 	/**
 	 * Deletes a product by its ID.
 	 *
@@ -42,9 +69,12 @@ public interface ProductService {
 
 	/**
 	 * Searches for products by a query string.
+	 * Products match if their name, description or category contain every word of the query, also as prefix.
 	 *
 	 * @param query the query string to search for
-	 * @return a list of products matching the search criteria
+	 * @param page the zero-based page number
+	 * @param size the maximum number of products per page
+	 * @return the products matching the search criteria, most relevant first
 	 */
-	List<Product> search(String query);
+	List<Product> search(String query, int page, int size);
 }
@@ -1,10 +1,22 @@
 package com.example.product;
 
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example.product.event.ChangeBatchEvent;
+import com.example.product.event.OutboxRelay;
+import com.example.product.event.ProductChangeNotifier;
+import com.example.product.model.ChangeType;
 import com.example.product.model.Product;
-import com.example.product.security.JwtUtil;
+import com.example.product.repository.OutboxEventRepository;
+import com.example.product.search.ProductSearchIndex;
 import com.example.product.security.SecurityConstants;
+import com.example.product.service.ProductServiceImpl;
 import com.example.product.service.interfaces.ProductService;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtUtil;
+import com.example.security.ServiceCredentials;
+import com.example.security.TokenVerification;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,32 +24,51 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * Integration tests for the ProductService.
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "outbox.relay-interval-ms=3600000")
 @AutoConfigureMockMvc
+@RecordApplicationEvents
 public class ProductServiceIntegrationTest {
 
 	private MockMvc mockMvc;
@@ -48,6 +79,18 @@ public class ProductServiceIntegrationTest {
 	@Autowired
 	private JwtUtil jwtUtil;
 
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@Autowired
+	private ApplicationEvents applicationEvents;
+
 	@MockBean
 	private ProductService productService;
 
@@ -128,6 +171,49 @@ public class ProductServiceIntegrationTest {
 				.andExpect(jsonPath("$[1].category", is(product2.getCategory())));
 	}
 
+	/**
+	 * Tests retrieving a page of products with a link to the next page.
+	 */
+	@Test
+	void testGetProductsPage() throws Exception {
+		Product product2 = new Product();
+		product2.setId(2L);
+		product2.setName("Test Product 2");
+
+		when(productService.findPage(eq(0L), eq(2))).thenReturn(Arrays.asList(product, product2));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username",
+				Collections.singletonList(SecurityConstants.ROLE_USER)));
+
+		mockMvc.perform(get("/products").param("after", "0").param("limit", "2").headers(headers))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(2)))
+				.andExpect(jsonPath("$[1].id", is(product2.getId().intValue())))
+				.andExpect(header().string(HttpHeaders.LINK, is("</products?after=2&limit=2>; rel=\"next\"")));
+	}
+
+	/**
+	 * Tests streaming all products as newline delimited JSON.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	void testStreamProducts() throws Exception {
+		doAnswer(invocation -> {
+			((Consumer<Product>) invocation.getArgument(0)).accept(product);
+			return null;
+		}).when(productService).streamAll(any());
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username",
+				Collections.singletonList(SecurityConstants.ROLE_USER)));
+
+		mockMvc.perform(get("/products").accept(MediaType.APPLICATION_NDJSON).headers(headers))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string(objectMapper.writeValueAsString(product) + "\n"));
+	}
+
 	/**
 	 * Tests retrieving a product by its ID.
 	 */
@@ -154,6 +240,33 @@ public class ProductServiceIntegrationTest {
 				.andExpect(jsonPath("$.category", is(product.getCategory())));
 	}
 
+	/**
+	 * Tests retrieving several products by their IDs in one call as a non-admin user.
+	 */
+	@Test
+	void testGetProductsByIds() throws Exception {
+		when(productService.findAllById(any())).thenReturn(Collections.singletonList(product));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username",
+				Collections.singletonList(SecurityConstants.ROLE_USER)));
+
+		mockMvc.perform(post("/products/batch")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Arrays.asList(1L, 99L))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()", is(1)))
+				.andExpect(jsonPath("$[0].id", is(product.getId().intValue())));
+
+		List<Long> tooManyIds = LongStream.rangeClosed(1, 1001).boxed().toList();
+		mockMvc.perform(post("/products/batch")
+						.headers(headers)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(tooManyIds)))
+				.andExpect(status().isBadRequest());
+	}
+
 	/**
 	 * Tests updating a product.
 	 */
@@ -210,7 +323,7 @@ public class ProductServiceIntegrationTest {
 	 */
 	@Test
 	void testSearchProducts() throws Exception {
-		when(productService.search(any(String.class))).thenReturn(Collections.singletonList(product));
+		when(productService.search(any(String.class), anyInt(), anyInt())).thenReturn(Collections.singletonList(product));
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.add(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken("username",
@@ -223,4 +336,128 @@ public class ProductServiceIntegrationTest {
 				.andExpect(jsonPath("$[0].description", is(product.getDescription())))
 				.andExpect(jsonPath("$[0].category", is(product.getCategory())));
 	}
+
+	/**
+	 * Tests that the search index matches all query words by prefix and ranks name matches first.
+	 */
+	@Test
+	void testSearchIndex() {
+		Product phone = new Product();
+		phone.setId(10L);
+		phone.setName("Smartphone Case");
+		phone.setDescription("Leather case");
+		phone.setCategory("Accessories");
+
+		Product laptop = new Product();
+		laptop.setId(11L);
+		laptop.setName("Laptop Sleeve");
+		laptop.setDescription("Leather sleeve, fits a smartphone too");
+		laptop.setCategory("Accessories");
+
+		searchIndex.clear();
+		searchIndex.index(phone);
+		searchIndex.index(laptop);
+
+		List<Product> results = searchIndex.search("SMART leather", 0, 10);
+		assertEquals(Arrays.asList(10L, 11L), results.stream().map(Product::getId).toList());
+		assertEquals(Collections.singletonList(11L), searchIndex.search("smart leather", 1, 1).stream().map(Product::getId).toList());
+		assertTrue(searchIndex.search("leather cable", 0, 10).isEmpty());
+
+		searchIndex.remove(10L);
+		assertEquals(Collections.singletonList(11L), searchIndex.search("smartphone", 0, 10).stream().map(Product::getId).toList());
+	}
+
+	/**
+	 * Tests that rejected tokens are reported without exceptions and remembered.
+	 */
+	@Test
+	void testInvalidTokensAreCached() {
+		String forged = jwtUtil.createToken("username", Collections.singletonList(SecurityConstants.ROLE_ADMIN)) + "x";
+
+		TokenVerification result = jwtUtil.verifyToken(forged);
+		assertFalse(result.isValid());
+		assertSame(result, jwtUtil.getCachedVerification(forged));
+		assertFalse(jwtUtil.verifyToken("not-a-jwt").isValid());
+	}
+
+	/**
+	 * Tests that the outbox is relayed in batches of at most the configured size and emptied afterwards.
+	 */
+	@Test
+	void testOutboxIsRelayedInBatches() {
+		outboxEventRepository.deleteAll();
+		for (long id = 1; id <= 600; id++) {
+			outboxEventRepository.append(ProductServiceImpl.AGGREGATE_TYPE, id, ChangeType.SAVED);
+		}
+		outboxEventRepository.append(ProductServiceImpl.AGGREGATE_TYPE, 1L, ChangeType.DELETED);
+
+		outboxRelay.relay();
+
+		List<ChangeBatchEvent> batches = applicationEvents.stream(ChangeBatchEvent.class).toList();
+		assertEquals(2, batches.size());
+		assertEquals(500, batches.get(0).getChanges().size());
+		assertEquals(101, batches.get(1).getChanges().size());
+		assertEquals(List.of(501L, 502L), batches.get(1).getAggregateIds(ProductServiceImpl.AGGREGATE_TYPE).subList(0, 2));
+		assertEquals(0, outboxEventRepository.count());
+	}
+
+	/**
+	 * Tests that a batch whose delivery fails stays in the outbox and is relayed again with the next pass.
+	 */
+	@Test
+	void testUndeliveredChangesStayInTheOutbox() {
+		outboxEventRepository.deleteAll();
+		outboxEventRepository.append(ProductServiceImpl.AGGREGATE_TYPE, 1L, ChangeType.SAVED);
+		OutboxRelay failingRelay = new OutboxRelay(outboxEventRepository, event -> {
+			throw new IllegalStateException("Order service unreachable");
+		}, 500, 300000, 0);
+
+		failingRelay.relay();
+		assertEquals(1, outboxEventRepository.count());
+
+		outboxRelay.relay();
+		assertEquals(0, outboxEventRepository.count());
+	}
+
+	/**
+	 * Tests that changes which still cannot be delivered once they reach the retry age are dropped.
+	 */
+	@Test
+	void testExpiredChangesAreDropped() {
+		outboxEventRepository.deleteAll();
+		outboxEventRepository.append(ProductServiceImpl.AGGREGATE_TYPE, 1L, ChangeType.SAVED);
+		OutboxRelay failingRelay = new OutboxRelay(outboxEventRepository, event -> {
+			throw new IllegalStateException("Order service unreachable");
+		}, 500, 0, 0);
+
+		failingRelay.relay();
+		assertEquals(0, outboxEventRepository.count());
+	}
+
+	/**
+	 * Tests that product changes are dropped without notifying the order service when the product service cannot
+	 * authenticate, as with RS256 tokens and identity propagation disabled, instead of piling up in the outbox.
+	 */
+	@Test
+	void testChangesAreDroppedWithoutServiceCredentials() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		RSAPublicKey publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+		JwtUtil verifyingJwtUtil = new JwtUtil(Algorithm.RSA256(publicKey, null), 60000, 100, 60000,
+				new SimpleMeterRegistry());
+		ServiceCredentials serviceCredentials = new ServiceCredentials("product-service", Duration.ofMinutes(1),
+				new IdentityHeaderCodec(false, ""), verifyingJwtUtil);
+		DiscoveryClient discoveryClient = Mockito.mock(DiscoveryClient.class);
+		ProductChangeNotifier notifier = new ProductChangeNotifier(discoveryClient, serviceCredentials,
+				new RestTemplateBuilder());
+		OutboxRelay relay = new OutboxRelay(outboxEventRepository,
+				event -> notifier.onChanges((ChangeBatchEvent) event), 500, 300000, 0);
+		outboxEventRepository.deleteAll();
+		outboxEventRepository.append(ProductServiceImpl.AGGREGATE_TYPE, 1L, ChangeType.SAVED);
+
+		relay.relay();
+
+		assertEquals(0, outboxEventRepository.count());
+		Mockito.verifyNoInteractions(discoveryClient);
+	}
 }
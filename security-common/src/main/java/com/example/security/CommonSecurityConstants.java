@@ -0,0 +1,48 @@
+package com.example.security;
+
+/**
+ * Security constants shared by all services.
+ * <p>
+ * The {@code SecurityConstants} of each service refer to these values and add their own URLs.
+ * </p>
+ */
+public final class CommonSecurityConstants {
+
+	// JWT related constants
+	/**
+	 * Prefix for the JWT token.
+	 */
+	public static final String JWT_TOKEN_PREFIX = "Bearer ";
+
+	/**
+	 * Header string for the JWT token.
+	 */
+	public static final String JWT_HEADER_STRING = "Authorization";
+
+	/**
+	 * Header string for the signed identity propagated by the API gateway.
+	 */
+	public static final String IDENTITY_HEADER_STRING = "X-Authenticated-Identity";
+
+	// Role based constants
+	/**
+	 * Role constant for users.
+	 */
+	public static final String ROLE_USER = "USER";
+
+	/**
+	 * Role constant for administrators.
+	 */
+	public static final String ROLE_ADMIN = "ADMIN";
+
+	/**
+	 * Prefix of the granted authority of a role.
+	 */
+	public static final String ROLE_PREFIX = "ROLE_";
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private CommonSecurityConstants() {
+	}
+}
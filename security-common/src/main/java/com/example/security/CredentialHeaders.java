@@ -0,0 +1,56 @@
+package com.example.security;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * Utility for forwarding the caller's credentials to other services.
+ * <p>
+ * Depending on the deployment, a request is authenticated either by a bearer token or by the signed identity
+ * header of the API gateway, so both headers are forwarded when present.
+ * </p>
+ */
+public final class CredentialHeaders {
+
+	private static final List<String> CREDENTIAL_HEADERS = List.of(
+			CommonSecurityConstants.JWT_HEADER_STRING,
+			CommonSecurityConstants.IDENTITY_HEADER_STRING
+	);
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private CredentialHeaders() {
+	}
+
+	/**
+	 * Extracts the JWT token from the value of an authorization header.
+	 *
+	 * @param authorizationHeader the value of the authorization header, may be null
+	 * @return the JWT token, or null if the header does not carry a bearer token
+	 */
+	public static String bearerToken(String authorizationHeader) {
+		if (authorizationHeader != null && authorizationHeader.startsWith(CommonSecurityConstants.JWT_TOKEN_PREFIX)) {
+			return authorizationHeader.substring(CommonSecurityConstants.JWT_TOKEN_PREFIX.length());
+		}
+		return null;
+	}
+
+	/**
+	 * Copies the credential headers of an incoming request.
+	 *
+	 * @param requestHeaders the headers of the incoming request
+	 * @return new headers containing only the credentials of the request
+	 */
+	public static HttpHeaders copyOf(HttpHeaders requestHeaders) {
+		HttpHeaders credentials = new HttpHeaders();
+		for (String name : CREDENTIAL_HEADERS) {
+			String value = requestHeaders.getFirst(name);
+			if (value != null) {
+				credentials.set(name, value);
+			}
+		}
+		return credentials;
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Encodes and decodes the signed identity header propagated by the API gateway.
+ * <p>
+ * When the gateway terminates authentication it verifies the JWT once and forwards the caller's identity as
+ * {@code base64url(expiry|roles|username) + "." + base64url(HMAC-SHA256)} instead of the bearer token.
+ * Checking the MAC is much cheaper than a full JWT verification. The header is only trusted while
+ * {@code security.identity.enabled} is set, so the services keep working standalone with plain JWTs.
+ * </p>
+ */
+public class IdentityHeaderCodec {
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final String FIELD_SEPARATOR = "|";
+	private static final String ROLE_SEPARATOR = ",";
+	private static final String SIGNATURE_SEPARATOR = ".";
+	private static final Pattern FIELD_SPLITTER = Pattern.compile(Pattern.quote(FIELD_SEPARATOR));
+	private static final Pattern ROLE_SPLITTER = Pattern.compile(ROLE_SEPARATOR);
+	private static final String INVALID_IDENTITY_MESSAGE = "Invalid identity header";
+	private static final String EXPIRED_IDENTITY_MESSAGE = "Expired identity header";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final boolean enabled;
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * Constructs an IdentityHeaderCodec.
+	 *
+	 * @param enabled whether identity headers are trusted
+	 * @param secret the secret shared with the gateway for signing identity headers
+	 * @throws IllegalStateException if enabled without a secret
+	 */
+	public IdentityHeaderCodec(boolean enabled, String secret) {
+		if (enabled && secret.isEmpty()) {
+			throw new IllegalStateException("security.identity.secret must be set when security.identity.enabled is true");
+		}
+		SecretKeySpec key = new SecretKeySpec(secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+		this.enabled = enabled;
+		this.macs = ThreadLocal.withInitial(() -> newMac(key));
+	}
+
+	/**
+	 * Checks whether identity headers are trusted.
+	 *
+	 * @return true if identity propagation is enabled, false otherwise
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Encodes the given principal into a signed identity header value.
+	 *
+	 * @param principal the principal to encode
+	 * @return the signed header value
+	 */
+	public String encode(JwtPrincipal principal) {
+		String expiresAt = principal.getExpiresAt() == null ? "" : Long.toString(principal.getExpiresAt().getEpochSecond());
+		String fields = expiresAt + FIELD_SEPARATOR + String.join(ROLE_SEPARATOR, principal.getRoles())
+				+ FIELD_SEPARATOR + principal.getUsername();
+		String payload = ENCODER.encodeToString(fields.getBytes(StandardCharsets.UTF_8));
+		return payload + SIGNATURE_SEPARATOR + ENCODER.encodeToString(sign(payload));
+	}
+
+	/**
+	 * Verifies the signature of the given identity header value and decodes it into a principal.
+	 *
+	 * @param value the signed header value
+	 * @return the principal carried by the header
+	 * @throws RuntimeException if the header is malformed, tampered with or expired
+	 */
+	public JwtPrincipal decode(String value) {
+		int separator = value.lastIndexOf(SIGNATURE_SEPARATOR);
+		if (separator < 0) {
+			throw new RuntimeException(INVALID_IDENTITY_MESSAGE);
+		}
+		String payload = value.substring(0, separator);
+
+		String[] fields;
+		try {
+			byte[] signature = DECODER.decode(value.substring(separator + 1));
+			if (!MessageDigest.isEqual(sign(payload), signature)) {
+				throw new RuntimeException(INVALID_IDENTITY_MESSAGE);
+			}
+			fields = FIELD_SPLITTER.split(new String(DECODER.decode(payload), StandardCharsets.UTF_8), 3);
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeException(INVALID_IDENTITY_MESSAGE, e);
+		}
+		if (fields.length != 3) {
+			throw new RuntimeException(INVALID_IDENTITY_MESSAGE);
+		}
+
+		Instant expiresAt = fields[0].isEmpty() ? null : Instant.ofEpochSecond(Long.parseLong(fields[0]));
+		if (expiresAt != null && !expiresAt.isAfter(Instant.now())) {
+			throw new RuntimeException(EXPIRED_IDENTITY_MESSAGE);
+		}
+		List<String> roles = fields[1].isEmpty() ? List.of() : List.of(ROLE_SPLITTER.split(fields[1]));
+		return new JwtPrincipal(fields[2], roles, expiresAt);
+	}
+
+	/**
+	 * Computes the MAC of the given payload.
+	 *
+	 * @param payload the encoded payload
+	 * @return the MAC bytes
+	 */
+	private byte[] sign(String payload) {
+		return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Creates a MAC initialized with the signing key. Macs are not thread-safe, so one is kept per thread.
+	 *
+	 * @param key the signing key
+	 * @return the initialized MAC
+	 */
+	private static Mac newMac(SecretKeySpec key) {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
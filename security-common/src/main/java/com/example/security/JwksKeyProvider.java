@@ -0,0 +1,234 @@
+package com.example.security;
+
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the public keys of the user service for verifying RS256 signed tokens.
+ * <p>
+ * The JSON Web Key Set is downloaded in the background at startup and then every
+ * {@code jwt.jwks-refresh-interval-ms}, from {@code jwt.jwks-uri} or, if that is not set, from every user service
+ * instance found through the discovery server. The key sets of all instances are merged, so tokens are accepted
+ * whichever instance issued them, and the keys of an instance that cannot be reached are kept until it answers
+ * again. Tokens are verified against the cached keys, so verification never
+ * waits for the network. A token signed with an unknown key ID triggers an early refresh, at most once per
+ * {@code jwt.jwks-min-refresh-interval-ms}, so rotated keys are picked up quickly; the token itself is rejected.
+ * </p>
+ */
+public class JwksKeyProvider implements RSAKeyProvider {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JwksKeyProvider.class);
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+	private static final String RSA = "RSA";
+	private static final String USER_SERVICE_ID = "USER-SERVICE";
+	private static final String USER_SERVICE_JWKS_PATH = "/users/.well-known/jwks.json";
+
+	private final String jwksUri;
+	private final long minRefreshIntervalNanos;
+	private final DiscoveryClient discoveryClient;
+	private final ObjectMapper objectMapper;
+	private final HttpClient httpClient;
+	private final ScheduledExecutorService scheduler;
+	private final AtomicLong lastRefresh;
+	private volatile Map<String, RSAPublicKey> keys = Map.of();
+
+	/**
+	 * Constructs a JwksKeyProvider and starts the background refresh.
+	 *
+	 * @param jwksUri the URI of the key set, or empty to look up the user service in the discovery server
+	 * @param refreshInterval the interval between two scheduled downloads of the key set in milliseconds
+	 * @param minRefreshInterval the minimum interval between two downloads of the key set in milliseconds
+	 * @param discoveryClient the discovery client used to find a user service instance
+	 * @param objectMapper the object mapper for reading the key set
+	 */
+	public JwksKeyProvider(String jwksUri, long refreshInterval, long minRefreshInterval,
+			DiscoveryClient discoveryClient, ObjectMapper objectMapper) {
+		this.jwksUri = jwksUri;
+		this.minRefreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minRefreshInterval);
+		this.discoveryClient = discoveryClient;
+		this.objectMapper = objectMapper;
+		this.httpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+		this.lastRefresh = new AtomicLong(System.nanoTime() - minRefreshIntervalNanos);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jwks-refresh-");
+		threadFactory.setDaemon(true);
+		this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+		this.scheduler.scheduleWithFixedDelay(this::refresh, 0L, refreshInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background refresh.
+	 */
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Returns the cached public key with the given key ID. An unknown key ID triggers an early refresh.
+	 *
+	 * @param keyId the key ID from the token header
+	 * @return the public key, or null if it is not known (yet)
+	 */
+	@Override
+	public RSAPublicKey getPublicKeyById(String keyId) {
+		RSAPublicKey key = keyId == null ? null : keys.get(keyId);
+		if (key == null) {
+			requestRefresh();
+		}
+		return key;
+	}
+
+	/**
+	 * Tokens are only issued by the user service.
+	 *
+	 * @return null
+	 */
+	@Override
+	public RSAPrivateKey getPrivateKey() {
+		return null;
+	}
+
+	/**
+	 * Tokens are only issued by the user service.
+	 *
+	 * @return null
+	 */
+	@Override
+	public String getPrivateKeyId() {
+		return null;
+	}
+
+	/**
+	 * Schedules an immediate refresh unless the last one started less than the minimum interval ago.
+	 */
+	private void requestRefresh() {
+		long now = System.nanoTime();
+		long last = lastRefresh.get();
+		if (now - last >= minRefreshIntervalNanos && lastRefresh.compareAndSet(last, now)) {
+			scheduler.execute(this::refresh);
+		}
+	}
+
+	/**
+	 * Downloads the key sets of all user service instances and replaces the cached keys with their union.
+	 * Failures are logged; if any download fails, the previous keys are kept in addition to the new ones.
+	 * Nothing is thrown, since an exception would cancel the scheduled refresh.
+	 */
+	private void refresh() {
+		lastRefresh.set(System.nanoTime());
+		try {
+			List<URI> uris = resolveJwksUris();
+			if (uris.isEmpty()) {
+				LOGGER.warn("No user service instance available to fetch the JWT signing keys from");
+				return;
+			}
+			Map<String, RSAPublicKey> merged = new HashMap<>();
+			boolean complete = true;
+			for (URI uri : uris) {
+				Map<String, RSAPublicKey> fetched = fetch(uri);
+				if (fetched == null) {
+					complete = false;
+				} else {
+					merged.putAll(fetched);
+				}
+			}
+			if (!complete) {
+				keys.forEach(merged::putIfAbsent);
+			}
+			keys = Map.copyOf(merged);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Could not refresh the JWT signing keys", e);
+		}
+	}
+
+	/**
+	 * Downloads a single key set.
+	 *
+	 * @param uri the URI of the key set
+	 * @return the public keys by key ID, or null if the key set could not be fetched
+	 */
+	private Map<String, RSAPublicKey> fetch(URI uri) {
+		try {
+			HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET().build(),
+					HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				LOGGER.warn("Could not fetch the JWT signing keys from {}: status {}", uri, response.statusCode());
+				return null;
+			}
+			return parse(response.body());
+		} catch (IOException | GeneralSecurityException | RuntimeException e) {
+			LOGGER.warn("Could not fetch the JWT signing keys from {}", uri, e);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Resolves the URIs of the key sets.
+	 *
+	 * @return the configured URI, or the URIs of all registered user service instances
+	 */
+	private List<URI> resolveJwksUris() {
+		if (!jwksUri.isEmpty()) {
+			return List.of(URI.create(jwksUri));
+		}
+		List<URI> uris = new ArrayList<>();
+		for (ServiceInstance instance : discoveryClient.getInstances(USER_SERVICE_ID)) {
+			uris.add(URI.create(instance.getUri() + USER_SERVICE_JWKS_PATH));
+		}
+		return uris;
+	}
+
+	/**
+	 * Reads the RSA signing keys from a JSON Web Key Set.
+	 *
+	 * @param body the key set
+	 * @return the public keys by key ID
+	 * @throws IOException if the key set is not valid JSON
+	 * @throws GeneralSecurityException if a key is invalid
+	 */
+	private Map<String, RSAPublicKey> parse(String body) throws IOException, GeneralSecurityException {
+		KeyFactory keyFactory = KeyFactory.getInstance(RSA);
+		Base64.Decoder decoder = Base64.getUrlDecoder();
+		Map<String, RSAPublicKey> parsed = new HashMap<>();
+		for (JsonNode jwk : objectMapper.readTree(body).path("keys")) {
+			if (!RSA.equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) {
+				continue;
+			}
+			RSAPublicKeySpec spec = new RSAPublicKeySpec(
+					new BigInteger(1, decoder.decode(jwk.path("n").asText())),
+					new BigInteger(1, decoder.decode(jwk.path("e").asText())));
+			parsed.put(jwk.get("kid").asText(), (RSAPublicKey) keyFactory.generatePublic(spec));
+		}
+		return Map.copyOf(parsed);
+	}
+}
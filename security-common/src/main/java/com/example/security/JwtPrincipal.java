@@ -0,0 +1,93 @@
+package com.example.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable principal decoded from a verified JWT token.
+ * <p>
+ * The principal is created once per token and stored in the security context, so controllers
+ * can access the username and roles without parsing the token again. Its granted authorities are the
+ * shared {@link RoleAuthorities} of its roles, so authenticating a request does not allocate them.
+ * </p>
+ */
+public final class JwtPrincipal implements Principal {
+
+	private final String username;
+	private final List<String> roles;
+	private final List<GrantedAuthority> authorities;
+	private final Instant expiresAt;
+
+	/**
+	 * Constructs a JwtPrincipal.
+	 *
+	 * @param username the subject of the token
+	 * @param roles the roles granted by the token
+	 * @param expiresAt the expiration time of the token, or null if the token does not expire
+	 */
+	public JwtPrincipal(String username, List<String> roles, Instant expiresAt) {
+		this.username = username;
+		this.roles = roles == null ? List.of() : List.copyOf(roles);
+		this.authorities = RoleAuthorities.of(this.roles);
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * Gets the username.
+	 *
+	 * @return the subject of the token
+	 */
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Gets the roles.
+	 *
+	 * @return an unmodifiable list of the roles granted by the token
+	 */
+	public List<String> getRoles() {
+		return roles;
+	}
+
+	/**
+	 * Gets the granted authorities of the roles.
+	 *
+	 * @return the shared, unmodifiable list of authorities, prefixed with {@code ROLE_}
+	 */
+	public List<GrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+
+	/**
+	 * Gets the expiration time.
+	 *
+	 * @return the expiration time of the token, or null if the token does not expire
+	 */
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * Checks whether the token grants the given role.
+	 *
+	 * @param role the role to check
+	 * @return true if the role is granted, false otherwise
+	 */
+	public boolean hasRole(String role) {
+		return roles.contains(role);
+	}
+
+	/**
+	 * Gets the name of the principal.
+	 *
+	 * @return the username
+	 */
+	@Override
+	public String getName() {
+		return username;
+	}
+}
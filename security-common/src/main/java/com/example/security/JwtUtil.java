@@ -0,0 +1,305 @@
+package com.example.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.AlgorithmMismatchException;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility class for creating and verifying JWT tokens, shared by all services.
+ * <p>
+ * A token is parsed and verified once; the resulting {@link JwtPrincipal} is cached by the SHA-256 digest of
+ * the token until the token expires, so repeated requests carrying the same token skip signature verification.
+ * Rejected tokens are cached for a short time as well, so replaying a bad token is as cheap as a good one, and
+ * tokens that are not even shaped like a JWT are rejected without parsing. Only rejections that stay true are
+ * cached: a token signed with a key that is not known yet may become valid once the key set is refreshed. Cache
+ * statistics are published under the {@code cache.*} metrics with the tags {@code cache=jwt-tokens} and
+ * {@code cache=jwt-invalid-tokens} and verification time under {@code jwt.verification}.
+ * </p>
+ */
+public class JwtUtil {
+
+	// Constants used in the JWT utility class
+	private static final String JWT_CACHE_NAME = "jwt-tokens";
+	private static final String JWT_INVALID_CACHE_NAME = "jwt-invalid-tokens";
+	private static final String JWT_VERIFICATION_METRIC = "jwt.verification";
+	private static final String JWT_ROLES_CLAIM = "roles";
+	private static final String JWT_EXPIRED_OR_INVALID_TOKEN_MESSAGE = "Expired or invalid JWT token";
+	private static final char JWT_PART_SEPARATOR = '.';
+	private static final TokenVerification MALFORMED = TokenVerification.invalid("Malformed JWT token");
+
+	private final Algorithm algorithm;
+	private final JWTVerifier verifier;
+	private final long expirationTime; // in milliseconds
+	private final Cache<String, TokenVerification> verifiedTokens;
+	private final Cache<String, TokenVerification> invalidTokens;
+	private final Timer verificationTimer;
+
+	/**
+	 * Constructs a JwtUtil.
+	 * <p>
+	 * The user service passes its signing key. The other services verify with the shared secret (HS256) or
+	 * against the public keys of the user service provided by a {@link JwksKeyProvider} (RS256); they cannot
+	 * issue RS256 tokens.
+	 * </p>
+	 *
+	 * @param algorithm the algorithm tokens are signed and verified with
+	 * @param expirationTime the lifetime of issued tokens in milliseconds
+	 * @param cacheMaxSize the maximum number of cached verified tokens, and of cached rejected tokens
+	 * @param invalidCacheTtl how long rejected tokens are cached in milliseconds
+	 * @param meterRegistry the registry the cache and verification metrics are published to
+	 */
+	public JwtUtil(Algorithm algorithm, long expirationTime, long cacheMaxSize, long invalidCacheTtl, MeterRegistry meterRegistry) {
+		this.algorithm = algorithm;
+		this.verifier = JWT.require(algorithm).build();
+		this.expirationTime = expirationTime;
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(cacheMaxSize)
+				.expireAfter(new TokenExpiry())
+				.recordStats()
+				.build();
+		this.invalidTokens = Caffeine.newBuilder()
+				.maximumSize(cacheMaxSize)
+				.expireAfterWrite(invalidCacheTtl, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		this.verificationTimer = meterRegistry.timer(JWT_VERIFICATION_METRIC);
+		CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, JWT_CACHE_NAME);
+		CaffeineCacheMetrics.monitor(meterRegistry, invalidTokens, JWT_INVALID_CACHE_NAME);
+	}
+
+	/**
+	 * Creates a JWT token for the given username and roles.
+	 *
+	 * @param username the username to include in the token
+	 * @param roles the roles to include in the token
+	 * @return the created JWT token
+	 */
+	public String createToken(String username, List<String> roles) {
+		return JWT.create()
+				.withSubject(username)
+				.withIssuedAt(new Date())
+				.withExpiresAt(new Date(System.currentTimeMillis() + expirationTime))
+				.withClaim(JWT_ROLES_CLAIM, roles)
+				.sign(algorithm);
+	}
+
+	/**
+	 * Verifies the given JWT token without throwing for invalid tokens.
+	 * Results are cached with the token, so repeated calls skip verification.
+	 *
+	 * @param token the JWT token
+	 * @return the verification result
+	 */
+	public TokenVerification verifyToken(String token) {
+		if (!isWellFormed(token)) {
+			return MALFORMED;
+		}
+		String key = digest(token);
+		TokenVerification result = findCached(key);
+		return result != null ? result : verify(key, token);
+	}
+
+	/**
+	 * Looks up the cached verification result of the given JWT token without verifying it.
+	 * Callers can use this to verify only uncached tokens on another thread.
+	 *
+	 * @param token the JWT token
+	 * @return the cached result, or null if the token still has to be verified
+	 */
+	public TokenVerification getCachedVerification(String token) {
+		if (!isWellFormed(token)) {
+			return MALFORMED;
+		}
+		return findCached(digest(token));
+	}
+
+	/**
+	 * Verifies the given JWT token and decodes it into a principal.
+	 * The principal is cached with the token, so repeated calls skip verification.
+	 *
+	 * @param token the JWT token
+	 * @return the principal decoded from the token
+	 * @throws RuntimeException if the token is expired or invalid
+	 */
+	public JwtPrincipal getPrincipal(String token) {
+		TokenVerification result = verifyToken(token);
+		if (!result.isValid()) {
+			throw new RuntimeException(JWT_EXPIRED_OR_INVALID_TOKEN_MESSAGE + ": " + result.getFailure());
+		}
+		return result.getPrincipal();
+	}
+
+	/**
+	 * Validates the given JWT token.
+	 *
+	 * @param token the JWT token to validate
+	 * @return true if the token is valid, false otherwise
+	 * @throws RuntimeException if the token is expired or invalid
+	 */
+	public boolean validateToken(String token) {
+		getPrincipal(token);
+		return true;
+	}
+
+	/**
+	 * Retrieves the username from the given JWT token.
+	 *
+	 * @param token the JWT token
+	 * @return the username extracted from the token
+	 * @throws RuntimeException if the token is invalid
+	 */
+	public String getUsername(String token) {
+		return getPrincipal(token).getUsername();
+	}
+
+	/**
+	 * Retrieves the roles from the given JWT token.
+	 *
+	 * @param token the JWT token
+	 * @return the list of roles extracted from the token
+	 * @throws RuntimeException if the token is invalid
+	 */
+	public List<String> getRoles(String token) {
+		return getPrincipal(token).getRoles();
+	}
+
+	/**
+	 * Looks up a cached verification result.
+	 *
+	 * @param key the digest of the token
+	 * @return the cached result, or null if the token has not been verified recently
+	 */
+	private TokenVerification findCached(String key) {
+		TokenVerification result = verifiedTokens.getIfPresent(key);
+		return result != null ? result : invalidTokens.getIfPresent(key);
+	}
+
+	/**
+	 * Verifies the given JWT token and caches the result. A correctly signed token whose claims cannot be read
+	 * into a principal is rejected as well.
+	 *
+	 * @param key the digest of the token
+	 * @param token the JWT token to verify
+	 * @return the verification result
+	 */
+	private TokenVerification verify(String key, String token) {
+		TokenVerification result;
+		try {
+			DecodedJWT jwt = verificationTimer.record(() -> verifier.verify(token));
+			Date expiresAt = jwt.getExpiresAt();
+			List<String> roles = jwt.getClaim(JWT_ROLES_CLAIM).asList(String.class);
+			if (roles != null && roles.contains(null)) {
+				throw new JWTDecodeException("The Claim '" + JWT_ROLES_CLAIM + "' contains a null value.");
+			}
+			result = TokenVerification.valid(new JwtPrincipal(jwt.getSubject(), roles,
+					expiresAt == null ? null : expiresAt.toInstant()));
+		} catch (JWTVerificationException e) {
+			result = TokenVerification.invalid(e.getMessage());
+			if (isPermanent(e)) {
+				invalidTokens.put(key, result);
+			}
+			return result;
+		}
+		verifiedTokens.put(key, result);
+		return result;
+	}
+
+	/**
+	 * Checks whether a token was rejected for a reason that does not change when it is verified again: a
+	 * malformed token, a wrong algorithm or signature, an expired token or an invalid claim. A signature check
+	 * fails with an {@link IllegalStateException} cause if no public key is known for the key ID of the token.
+	 *
+	 * @param e the verification failure
+	 * @return true if the rejection may be cached, false otherwise
+	 */
+	private static boolean isPermanent(JWTVerificationException e) {
+		if (e instanceof SignatureVerificationException) {
+			return !(e.getCause() instanceof IllegalStateException);
+		}
+		return e instanceof JWTDecodeException || e instanceof AlgorithmMismatchException
+				|| e instanceof TokenExpiredException || e instanceof InvalidClaimException;
+	}
+
+	/**
+	 * Checks whether the given token consists of three parts, as every JWT does.
+	 *
+	 * @param token the token
+	 * @return true if the token has the shape of a JWT, false otherwise
+	 */
+	private static boolean isWellFormed(String token) {
+		int first = token.indexOf(JWT_PART_SEPARATOR);
+		if (first <= 0) {
+			return false;
+		}
+		int second = token.indexOf(JWT_PART_SEPARATOR, first + 1);
+		return second > first + 1 && token.indexOf(JWT_PART_SEPARATOR, second + 1) < 0;
+	}
+
+	/**
+	 * Computes the cache key of a token.
+	 * <p>
+	 * The digest bounds the size of a key for arbitrarily long tokens and keeps the tokens themselves out of the
+	 * cache keys. It does not keep token data out of memory altogether: the token passes through the request, a
+	 * verified token is cached as the principal decoded from it, and the failure message of a rejected token may
+	 * quote parts of it.
+	 * </p>
+	 *
+	 * @param token the JWT token
+	 * @return the Base64 encoded SHA-256 digest of the token
+	 */
+	private static String digest(String token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Expires cached results no later than the expiration time of their token.
+	 */
+	private static final class TokenExpiry implements Expiry<String, TokenVerification> {
+
+		@Override
+		public long expireAfterCreate(String key, TokenVerification result, long currentTime) {
+			Instant expiresAt = result.getPrincipal().getExpiresAt();
+			if (expiresAt == null) {
+				return Long.MAX_VALUE;
+			}
+			return Math.max(0L, TimeUnit.MILLISECONDS.toNanos(expiresAt.toEpochMilli() - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, TokenVerification result, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, result, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, TokenVerification result, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
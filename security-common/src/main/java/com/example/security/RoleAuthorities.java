@@ -0,0 +1,60 @@
+package com.example.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interned granted authorities per role combination.
+ * <p>
+ * Tokens only carry a handful of distinct role combinations (USER, ADMIN, ...), so the immutable authority list
+ * of a combination is built once and shared by all principals with the same roles instead of being rebuilt per
+ * request. At most {@value #MAX_INTERNED} combinations are interned; further ones are built on every call.
+ * </p>
+ */
+public final class RoleAuthorities {
+
+	private static final int MAX_INTERNED = 64;
+	private static final ConcurrentMap<List<String>, List<GrantedAuthority>> INTERNED = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private RoleAuthorities() {
+	}
+
+	/**
+	 * Returns the granted authorities of the given roles.
+	 *
+	 * @param roles the immutable list of roles
+	 * @return the unmodifiable list of authorities, prefixed with {@code ROLE_}
+	 */
+	public static List<GrantedAuthority> of(List<String> roles) {
+		List<GrantedAuthority> authorities = INTERNED.get(roles);
+		if (authorities != null) {
+			return authorities;
+		}
+		if (INTERNED.size() >= MAX_INTERNED) {
+			return build(roles);
+		}
+		return INTERNED.computeIfAbsent(roles, RoleAuthorities::build);
+	}
+
+	/**
+	 * Builds the granted authorities of the given roles.
+	 *
+	 * @param roles the roles
+	 * @return the unmodifiable list of authorities
+	 */
+	private static List<GrantedAuthority> build(List<String> roles) {
+		List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+		for (String role : roles) {
+			authorities.add(new SimpleGrantedAuthority(CommonSecurityConstants.ROLE_PREFIX + role));
+		}
+		return List.copyOf(authorities);
+	}
+}
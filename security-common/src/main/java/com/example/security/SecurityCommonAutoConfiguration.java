@@ -0,0 +1,111 @@
+package com.example.security;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration of the shared security beans.
+ * <p>
+ * Every service gets an {@link IdentityHeaderCodec} and, unless it declares its own {@link JwtUtil} like the
+ * user service does, a {@link JwtUtil} verifying tokens with {@code jwt.secret} (HS256) or, with
+ * {@code jwt.algorithm: RS256}, against the keys of the user service provided by a {@link JwksKeyProvider}.
+ * The {@link ServiceCredentials} of a service authenticate it as {@code spring.application.name}.
+ * </p>
+ */
+@AutoConfiguration
+public class SecurityCommonAutoConfiguration {
+
+	/**
+	 * Creates the codec for the signed identity header.
+	 *
+	 * @param enabled whether identity headers are trusted
+	 * @param secret the secret shared by the gateway and the services for signing identity headers
+	 * @return the identity header codec
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public IdentityHeaderCodec identityHeaderCodec(@Value("${security.identity.enabled:false}") boolean enabled,
+			@Value("${security.identity.secret:}") String secret) {
+		return new IdentityHeaderCodec(enabled, secret);
+	}
+
+	/**
+	 * Creates the credentials of the service's own calls to other services.
+	 *
+	 * @param serviceName the name of the service
+	 * @param identityLifetime the lifetime of an identity header in milliseconds
+	 * @param identityHeaderCodec the codec signing identity headers
+	 * @param jwtUtil the utility issuing tokens
+	 * @return the service credentials
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public ServiceCredentials serviceCredentials(@Value("${spring.application.name}") String serviceName,
+			@Value("${security.service-credentials.lifetime-ms:60000}") long identityLifetime,
+			IdentityHeaderCodec identityHeaderCodec,
+			JwtUtil jwtUtil) {
+		return new ServiceCredentials(serviceName, Duration.ofMillis(identityLifetime), identityHeaderCodec, jwtUtil);
+	}
+
+	/**
+	 * Token verification of the services that do not issue tokens.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnMissingBean(JwtUtil.class)
+	static class JwtVerificationConfiguration {
+
+		/**
+		 * Creates the provider of the public keys of the user service.
+		 *
+		 * @param jwksUri the URI of the key set, or empty to look up the user service in the discovery server
+		 * @param refreshInterval the interval between two scheduled downloads of the key set in milliseconds
+		 * @param minRefreshInterval the minimum interval between two downloads of the key set in milliseconds
+		 * @param discoveryClient the discovery client used to find a user service instance
+		 * @param objectMapper the object mapper for reading the key set
+		 * @return the key provider
+		 */
+		@Bean(destroyMethod = "shutdown")
+		@ConditionalOnProperty(name = "jwt.algorithm", havingValue = "RS256")
+		public JwksKeyProvider jwksKeyProvider(@Value("${jwt.jwks-uri:}") String jwksUri,
+				@Value("${jwt.jwks-refresh-interval-ms:300000}") long refreshInterval,
+				@Value("${jwt.jwks-min-refresh-interval-ms:10000}") long minRefreshInterval,
+				DiscoveryClient discoveryClient,
+				ObjectMapper objectMapper) {
+			return new JwksKeyProvider(jwksUri, refreshInterval, minRefreshInterval, discoveryClient, objectMapper);
+		}
+
+		/**
+		 * Creates the JWT utility.
+		 *
+		 * @param secretKey the secret key for HS256
+		 * @param expirationTime the lifetime of issued tokens in milliseconds
+		 * @param cacheMaxSize the maximum number of cached verified tokens
+		 * @param invalidCacheTtl how long rejected tokens are cached in milliseconds
+		 * @param keyProvider the provider of the public keys, available for RS256
+		 * @param meterRegistry the registry the cache and verification metrics are published to
+		 * @return the JWT utility
+		 */
+		@Bean
+		public JwtUtil jwtUtil(@Value("${jwt.secret:}") String secretKey,
+				@Value("${jwt.expiration:3600000}") long expirationTime,
+				@Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+				@Value("${jwt.cache.invalid-ttl-ms:60000}") long invalidCacheTtl,
+				ObjectProvider<JwksKeyProvider> keyProvider,
+				MeterRegistry meterRegistry) {
+			JwksKeyProvider jwksKeyProvider = keyProvider.getIfAvailable();
+			Algorithm algorithm = jwksKeyProvider != null ? Algorithm.RSA256(jwksKeyProvider) : Algorithm.HMAC256(secretKey);
+			return new JwtUtil(algorithm, expirationTime, cacheMaxSize, invalidCacheTtl, meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.security;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Credentials a service authenticates its own background calls to other services with.
+ * <p>
+ * Calls made on behalf of a user forward the user's credentials through {@link CredentialHeaders}; calls made
+ * outside of a request, such as pushing change events, act as the calling service with the admin role. The
+ * service is identified by a signed identity header while {@code security.identity.enabled} is set, otherwise
+ * by a JWT issued with the shared secret. Services verifying tokens against the keys of the user service
+ * (RS256) cannot issue tokens and therefore have no credentials of their own without identity propagation.
+ * </p>
+ */
+public class ServiceCredentials {
+
+	private final String serviceName;
+	private final Duration lifetime;
+	private final IdentityHeaderCodec identityHeaderCodec;
+	private final JwtUtil jwtUtil;
+
+	/**
+	 * Constructs a ServiceCredentials.
+	 *
+	 * @param serviceName the name the service authenticates as
+	 * @param lifetime the lifetime of an identity header
+	 * @param identityHeaderCodec the codec signing identity headers
+	 * @param jwtUtil the utility issuing tokens when identity headers are not trusted
+	 */
+	public ServiceCredentials(String serviceName, Duration lifetime, IdentityHeaderCodec identityHeaderCodec, JwtUtil jwtUtil) {
+		this.serviceName = serviceName;
+		this.lifetime = lifetime;
+		this.identityHeaderCodec = identityHeaderCodec;
+		this.jwtUtil = jwtUtil;
+	}
+
+	/**
+	 * Creates the credential headers of a call made by the service itself.
+	 *
+	 * @return new headers carrying either a signed identity header or a bearer token
+	 * @throws RuntimeException if the service cannot issue a token
+	 */
+	public HttpHeaders create() {
+		HttpHeaders credentials = new HttpHeaders();
+		List<String> roles = List.of(CommonSecurityConstants.ROLE_ADMIN);
+		if (identityHeaderCodec.isEnabled()) {
+			credentials.set(CommonSecurityConstants.IDENTITY_HEADER_STRING,
+					identityHeaderCodec.encode(new JwtPrincipal(serviceName, roles, Instant.now().plus(lifetime))));
+		} else {
+			credentials.set(CommonSecurityConstants.JWT_HEADER_STRING,
+					CommonSecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken(serviceName, roles));
+		}
+		return credentials;
+	}
+}
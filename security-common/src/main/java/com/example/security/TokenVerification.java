@@ -0,0 +1,73 @@
+package com.example.security;
+
+/**
+ * Result of verifying a JWT token.
+ * <p>
+ * Unlike {@link JwtUtil#getPrincipal(String)}, verification through {@link JwtUtil#verifyToken(String)} reports an
+ * invalid token by its result instead of an exception, so callers rejecting a flood of bad tokens do not build a
+ * stack trace per request.
+ * </p>
+ */
+public final class TokenVerification {
+
+	private final JwtPrincipal principal;
+	private final String failure;
+
+	/**
+	 * Constructs a TokenVerification.
+	 *
+	 * @param principal the principal of a valid token, or null
+	 * @param failure the reason an invalid token was rejected, or null
+	 */
+	private TokenVerification(JwtPrincipal principal, String failure) {
+		this.principal = principal;
+		this.failure = failure;
+	}
+
+	/**
+	 * Creates the result of a valid token.
+	 *
+	 * @param principal the principal decoded from the token
+	 * @return the result
+	 */
+	public static TokenVerification valid(JwtPrincipal principal) {
+		return new TokenVerification(principal, null);
+	}
+
+	/**
+	 * Creates the result of an invalid token.
+	 *
+	 * @param failure the reason the token was rejected
+	 * @return the result
+	 */
+	public static TokenVerification invalid(String failure) {
+		return new TokenVerification(null, failure);
+	}
+
+	/**
+	 * Checks whether the token is valid.
+	 *
+	 * @return true if the token is valid, false otherwise
+	 */
+	public boolean isValid() {
+		return principal != null;
+	}
+
+	/**
+	 * Gets the principal of a valid token.
+	 *
+	 * @return the principal, or null if the token is invalid
+	 */
+	public JwtPrincipal getPrincipal() {
+		return principal;
+	}
+
+	/**
+	 * Gets the reason an invalid token was rejected.
+	 *
+	 * @return the reason, or null if the token is valid
+	 */
+	public String getFailure() {
+		return failure;
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.security.reactive;
+
+import com.example.security.CommonSecurityConstants;
+import com.example.security.CredentialHeaders;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtUtil;
+import com.example.security.TokenVerification;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.ThreadExecutorMap;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reactive filter authenticating every request that does not target a public path.
+ * <p>
+ * Identity headers sent by clients are always dropped. Requests without a valid bearer token are rejected with
+ * 401 (Unauthorized). When identity propagation is enabled, the bearer token of an authenticated request is
+ * replaced by a signed identity header, so downstream services do not have to verify the JWT again.
+ * </p>
+ * <p>
+ * Tokens are checked through the non-throwing {@link JwtUtil#verifyToken(String)}, so rejecting a bad token does
+ * not build an exception on the event loop. The principal of an authenticated request is stored in the exchange
+ * attribute {@link #PRINCIPAL_ATTRIBUTE}. Cached results are applied on the calling thread. If a verification
+ * scheduler is given, uncached tokens are verified on it instead of the event loop; when its queue is full the
+ * request is rejected with 503 (Service Unavailable). Only the verification runs on the scheduler: the rest of
+ * the filter chain continues on the Netty event loop the request arrived on.
+ * </p>
+ */
+public class JwtAuthenticationWebFilter implements WebFilter, DisposableBean {
+
+	/**
+	 * Name of the exchange attribute holding the {@link com.example.security.JwtPrincipal} of an authenticated request.
+	 */
+	public static final String PRINCIPAL_ATTRIBUTE = JwtAuthenticationWebFilter.class.getName() + ".PRINCIPAL";
+
+	private final JwtUtil jwtUtil;
+	private final IdentityHeaderCodec identityHeaderCodec;
+	private final Set<String> publicPaths;
+	private final Scheduler verificationScheduler;
+
+	/**
+	 * Constructs a JwtAuthenticationWebFilter verifying tokens on the calling thread.
+	 *
+	 * @param jwtUtil the utility class for JWT operations
+	 * @param identityHeaderCodec the codec for the signed identity header
+	 * @param publicPaths the paths that are forwarded without authentication
+	 */
+	public JwtAuthenticationWebFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec, Set<String> publicPaths) {
+		this(jwtUtil, identityHeaderCodec, publicPaths, null);
+	}
+
+	/**
+	 * Constructs a JwtAuthenticationWebFilter.
+	 *
+	 * @param jwtUtil the utility class for JWT operations
+	 * @param identityHeaderCodec the codec for the signed identity header
+	 * @param publicPaths the paths that are forwarded without authentication
+	 * @param verificationScheduler the bounded scheduler verifying uncached tokens, or null to verify them on the calling thread;
+	 *                              it is disposed with the filter
+	 */
+	public JwtAuthenticationWebFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec, Set<String> publicPaths,
+			Scheduler verificationScheduler) {
+		this.jwtUtil = jwtUtil;
+		this.identityHeaderCodec = identityHeaderCodec;
+		this.publicPaths = Set.copyOf(publicPaths);
+		this.verificationScheduler = verificationScheduler;
+	}
+
+	/**
+	 * Filters incoming requests to check for valid JWT tokens.
+	 *
+	 * @param exchange the current server exchange
+	 * @param filterChain the web filter chain
+	 * @return a Mono<Void> that indicates filter chain processing
+	 */
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain filterChain) {
+		String path = exchange.getRequest().getURI().getPath();
+		ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+				.headers(headers -> headers.remove(CommonSecurityConstants.IDENTITY_HEADER_STRING));
+
+		if (publicPaths.contains(path)) {
+			// Permit these paths without authentication
+			return filterChain.filter(exchange.mutate().request(request.build()).build());
+		}
+
+		String token = CredentialHeaders.bearerToken(exchange.getRequest().getHeaders().getFirst(CommonSecurityConstants.JWT_HEADER_STRING));
+
+		if (token == null) {
+			return reject(exchange, HttpStatus.UNAUTHORIZED);
+		}
+
+		TokenVerification cached = jwtUtil.getCachedVerification(token);
+		if (cached != null) {
+			return proceed(exchange, filterChain, request, cached);
+		}
+		if (verificationScheduler == null) {
+			return proceed(exchange, filterChain, request, jwtUtil.verifyToken(token));
+		}
+		return Mono.fromCallable(() -> jwtUtil.verifyToken(token))
+				.subscribeOn(verificationScheduler)
+				.publishOn(callingScheduler())
+				.map(Optional::of)
+				.onErrorResume(RejectedExecutionException.class, e -> Mono.just(Optional.empty()))
+				.flatMap(result -> result.isPresent()
+						? proceed(exchange, filterChain, request, result.get())
+						: reject(exchange, HttpStatus.SERVICE_UNAVAILABLE));
+	}
+
+	/**
+	 * Disposes the verification scheduler.
+	 */
+	@Override
+	public void destroy() {
+		if (verificationScheduler != null) {
+			verificationScheduler.dispose();
+		}
+	}
+
+	/**
+	 * Returns a scheduler running tasks on the Netty event loop of the calling thread.
+	 *
+	 * @return the event loop scheduler, or the immediate scheduler if not called on an event loop
+	 */
+	private static Scheduler callingScheduler() {
+		EventExecutor eventLoop = ThreadExecutorMap.currentExecutor();
+		return eventLoop != null ? Schedulers.fromExecutor(eventLoop) : Schedulers.immediate();
+	}
+
+	/**
+	 * Forwards an authenticated request or rejects it if its token is invalid.
+	 *
+	 * @param exchange the current server exchange
+	 * @param filterChain the web filter chain
+	 * @param request the builder of the forwarded request
+	 * @param result the verification result of the token
+	 * @return a Mono<Void> that indicates filter chain processing
+	 */
+	private Mono<Void> proceed(ServerWebExchange exchange, WebFilterChain filterChain, ServerHttpRequest.Builder request,
+			TokenVerification result) {
+		if (!result.isValid()) {
+			return reject(exchange, HttpStatus.UNAUTHORIZED);
+		}
+
+		exchange.getAttributes().put(PRINCIPAL_ATTRIBUTE, result.getPrincipal());
+		if (identityHeaderCodec.isEnabled()) {
+			String identity = identityHeaderCodec.encode(result.getPrincipal());
+			request.headers(headers -> {
+				headers.remove(CommonSecurityConstants.JWT_HEADER_STRING);
+				headers.set(CommonSecurityConstants.IDENTITY_HEADER_STRING, identity);
+			});
+		}
+
+		return filterChain.filter(exchange.mutate().request(request.build()).build());
+	}
+
+	/**
+	 * Completes the response with the given status.
+	 *
+	 * @param exchange the current server exchange
+	 * @param status the response status
+	 * @return a Mono<Void> completing the response
+	 */
+	private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+		exchange.getResponse().setStatusCode(status);
+		return exchange.getResponse().setComplete();
+	}
+}
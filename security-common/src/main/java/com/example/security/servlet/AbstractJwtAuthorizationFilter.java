@@ -0,0 +1,64 @@
+package com.example.security.servlet;
+
+import com.example.security.CommonSecurityConstants;
+import com.example.security.CredentialHeaders;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtPrincipal;
+import com.example.security.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Base class of the authorization filters of the servlet based services.
+ * <p>
+ * It resolves the caller from the signed identity header of the API gateway, if trusted, or from the JWT token
+ * and stores the {@link JwtPrincipal} in the security context. Subclasses decide what an unauthenticated request
+ * may do and add their own access rules.
+ * </p>
+ */
+public abstract class AbstractJwtAuthorizationFilter extends OncePerRequestFilter {
+
+	private final JwtUtil jwtUtil;
+	private final IdentityHeaderCodec identityHeaderCodec;
+
+	/**
+	 * Constructs an AbstractJwtAuthorizationFilter.
+	 *
+	 * @param jwtUtil the utility class for handling JWT operations
+	 * @param identityHeaderCodec the codec for the signed identity header of the API gateway
+	 */
+	protected AbstractJwtAuthorizationFilter(JwtUtil jwtUtil, IdentityHeaderCodec identityHeaderCodec) {
+		this.jwtUtil = jwtUtil;
+		this.identityHeaderCodec = identityHeaderCodec;
+	}
+
+	/**
+	 * Resolves the authenticated principal from the identity header, if trusted, or from the JWT token.
+	 *
+	 * @param request the HTTP request
+	 * @return the principal, or null if the request carries no credentials
+	 * @throws RuntimeException if the credentials are expired or invalid
+	 */
+	protected JwtPrincipal resolvePrincipal(HttpServletRequest request) {
+		if (identityHeaderCodec.isEnabled()) {
+			String identity = request.getHeader(CommonSecurityConstants.IDENTITY_HEADER_STRING);
+			if (identity != null) {
+				return identityHeaderCodec.decode(identity);
+			}
+		}
+		String token = CredentialHeaders.bearerToken(request.getHeader(CommonSecurityConstants.JWT_HEADER_STRING));
+		return token == null ? null : jwtUtil.getPrincipal(token);
+	}
+
+	/**
+	 * Stores the given principal and the shared authorities of its roles in the security context.
+	 *
+	 * @param principal the authenticated principal
+	 */
+	protected void authenticate(JwtPrincipal principal) {
+		UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+		SecurityContextHolder.getContext().setAuthentication(auth);
+	}
+}
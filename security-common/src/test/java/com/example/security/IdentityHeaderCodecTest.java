@@ -0,0 +1,80 @@
+package com.example.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link IdentityHeaderCodec}.
+ */
+public class IdentityHeaderCodecTest {
+
+	private final IdentityHeaderCodec codec = new IdentityHeaderCodec(true, "identity-secret");
+
+	/**
+	 * Tests that an encoded principal is decoded unchanged.
+	 */
+	@Test
+	public void encodedPrincipalsAreDecoded() {
+		Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+		JwtPrincipal principal = new JwtPrincipal("test|user", List.of(CommonSecurityConstants.ROLE_USER,
+				CommonSecurityConstants.ROLE_ADMIN), expiresAt);
+
+		JwtPrincipal decoded = codec.decode(codec.encode(principal));
+
+		assertEquals("test|user", decoded.getUsername());
+		assertEquals(List.of(CommonSecurityConstants.ROLE_USER, CommonSecurityConstants.ROLE_ADMIN), decoded.getRoles());
+		assertEquals(expiresAt, decoded.getExpiresAt());
+	}
+
+	/**
+	 * Tests that a principal without roles and expiry is decoded unchanged.
+	 */
+	@Test
+	public void principalsWithoutRolesAndExpiryAreDecoded() {
+		JwtPrincipal decoded = codec.decode(codec.encode(new JwtPrincipal("testuser", List.of(), null)));
+
+		assertEquals("testuser", decoded.getUsername());
+		assertTrue(decoded.getRoles().isEmpty());
+		assertNull(decoded.getExpiresAt());
+	}
+
+	/**
+	 * Tests that tampered, foreign, expired and malformed headers are rejected.
+	 */
+	@Test
+	public void invalidHeadersAreRejected() {
+		JwtPrincipal principal = new JwtPrincipal("testuser", List.of(CommonSecurityConstants.ROLE_USER),
+				Instant.now().plus(1, ChronoUnit.HOURS));
+		String value = codec.encode(principal);
+		String payload = value.substring(0, value.lastIndexOf('.'));
+		String forged = new IdentityHeaderCodec(true, "other-secret").encode(
+				new JwtPrincipal("testuser", List.of(CommonSecurityConstants.ROLE_ADMIN), principal.getExpiresAt()));
+		String expired = codec.encode(new JwtPrincipal("testuser", List.of(CommonSecurityConstants.ROLE_USER),
+				Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+		assertThrows(RuntimeException.class, () -> codec.decode(payload + ".AAAA"));
+		assertThrows(RuntimeException.class, () -> codec.decode("x" + value));
+		assertThrows(RuntimeException.class, () -> codec.decode(forged));
+		assertThrows(RuntimeException.class, () -> codec.decode(expired));
+		assertThrows(RuntimeException.class, () -> codec.decode(payload));
+		assertThrows(RuntimeException.class, () -> codec.decode("not base64!." + value.substring(payload.length() + 1)));
+	}
+
+	/**
+	 * Tests that identity propagation cannot be enabled without a secret.
+	 */
+	@Test
+	public void enabledCodecRequiresSecret() {
+		assertThrows(IllegalStateException.class, () -> new IdentityHeaderCodec(true, ""));
+		assertFalse(new IdentityHeaderCodec(false, "").isEnabled());
+	}
+}
@@ -0,0 +1,234 @@
+package com.example.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link JwksKeyProvider}, serving the key sets of user service instances from local HTTP servers.
+ */
+public class JwksKeyProviderTest {
+
+	private static final String USER_SERVICE_ID = "USER-SERVICE";
+	private static final String JWKS_PATH = "/users/.well-known/jwks.json";
+	private static final long AWAIT_MILLIS = 5000L;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+	private final List<HttpServer> servers = new ArrayList<>();
+	private JwksKeyProvider keyProvider;
+
+	/**
+	 * Stops the key provider and the servers after each test.
+	 */
+	@AfterEach
+	public void tearDown() {
+		if (keyProvider != null) {
+			keyProvider.shutdown();
+		}
+		servers.forEach(server -> server.stop(0));
+	}
+
+	/**
+	 * Tests that the key sets of all user service instances are merged.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void keysOfAllInstancesAreMerged() throws Exception {
+		RSAPublicKey first = generateKey();
+		RSAPublicKey second = generateKey();
+		ServiceInstance firstInstance = startInstance(new AtomicReference<>(jwkSet(Map.of("first", first))), new AtomicInteger());
+		ServiceInstance secondInstance = startInstance(new AtomicReference<>(jwkSet(Map.of("second", second))), new AtomicInteger());
+		when(discoveryClient.getInstances(USER_SERVICE_ID)).thenReturn(List.of(firstInstance, secondInstance));
+
+		keyProvider = new JwksKeyProvider("", 3600000L, 0L, discoveryClient, objectMapper);
+
+		assertEquals(first, await(() -> keyProvider.getPublicKeyById("first")));
+		assertEquals(second, await(() -> keyProvider.getPublicKeyById("second")));
+		assertNull(keyProvider.getPrivateKey());
+		assertNull(keyProvider.getPrivateKeyId());
+	}
+
+	/**
+	 * Tests that an unknown key ID triggers an early refresh, so rotated keys are picked up.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void unknownKeyIdsTriggerRefresh() throws Exception {
+		RSAPublicKey current = generateKey();
+		RSAPublicKey rotated = generateKey();
+		AtomicReference<String> jwkSet = new AtomicReference<>(jwkSet(Map.of("current", current)));
+		when(discoveryClient.getInstances(USER_SERVICE_ID)).thenReturn(List.of(startInstance(jwkSet, new AtomicInteger())));
+
+		keyProvider = new JwksKeyProvider("", 3600000L, 0L, discoveryClient, objectMapper);
+		assertEquals(current, await(() -> keyProvider.getPublicKeyById("current")));
+
+		jwkSet.set(jwkSet(Map.of("current", current, "rotated", rotated)));
+		assertEquals(rotated, await(() -> keyProvider.getPublicKeyById("rotated")));
+	}
+
+	/**
+	 * Tests that the keys of an instance that cannot be reached are kept.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void keysOfUnreachableInstancesAreKept() throws Exception {
+		RSAPublicKey first = generateKey();
+		RSAPublicKey second = generateKey();
+		AtomicInteger firstRequests = new AtomicInteger();
+		ServiceInstance firstInstance = startInstance(new AtomicReference<>(jwkSet(Map.of("first", first))), firstRequests);
+		ServiceInstance secondInstance = startInstance(new AtomicReference<>(jwkSet(Map.of("second", second))), new AtomicInteger());
+		when(discoveryClient.getInstances(USER_SERVICE_ID)).thenReturn(List.of(firstInstance, secondInstance));
+
+		keyProvider = new JwksKeyProvider("", 3600000L, 0L, discoveryClient, objectMapper);
+		assertEquals(second, await(() -> keyProvider.getPublicKeyById("second")));
+
+		servers.get(1).stop(0);
+		int requests = firstRequests.get();
+		assertNull(keyProvider.getPublicKeyById("unknown"));
+		await(() -> firstRequests.get() > requests ? Boolean.TRUE : null);
+		Thread.sleep(200L);
+
+		assertEquals(first, keyProvider.getPublicKeyById("first"));
+		assertEquals(second, keyProvider.getPublicKeyById("second"));
+	}
+
+	/**
+	 * Tests that a failing discovery lookup does not stop the scheduled refresh.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void failedRefreshesAreRetriedOnSchedule() throws Exception {
+		RSAPublicKey key = generateKey();
+		ServiceInstance instance = startInstance(new AtomicReference<>(jwkSet(Map.of("key", key))), new AtomicInteger());
+		when(discoveryClient.getInstances(USER_SERVICE_ID))
+				.thenThrow(new IllegalStateException("Discovery server unavailable"))
+				.thenReturn(List.of(instance));
+
+		keyProvider = new JwksKeyProvider("", 50L, 3600000L, discoveryClient, objectMapper);
+
+		assertEquals(key, await(() -> keyProvider.getPublicKeyById("key")));
+	}
+
+	/**
+	 * Starts a user service instance serving the given key set.
+	 *
+	 * @param jwkSet the key set to serve
+	 * @param requests the counter of served requests
+	 * @return the service instance
+	 * @throws IOException if the server cannot be started
+	 */
+	private ServiceInstance startInstance(AtomicReference<String> jwkSet, AtomicInteger requests) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext(JWKS_PATH, exchange -> {
+			requests.incrementAndGet();
+			byte[] body = jwkSet.get().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		servers.add(server);
+		return new DefaultServiceInstance(USER_SERVICE_ID + "-" + servers.size(), USER_SERVICE_ID, "localhost",
+				server.getAddress().getPort(), false);
+	}
+
+	/**
+	 * Builds a JSON Web Key Set of the given keys.
+	 *
+	 * @param keys the public keys by key ID
+	 * @return the key set
+	 * @throws IOException if the key set cannot be written
+	 */
+	private String jwkSet(Map<String, RSAPublicKey> keys) throws IOException {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		List<Map<String, Object>> jwks = new ArrayList<>();
+		keys.forEach((keyId, key) -> {
+			Map<String, Object> jwk = new LinkedHashMap<>();
+			jwk.put("kty", "RSA");
+			jwk.put("kid", keyId);
+			jwk.put("n", encoder.encodeToString(unsigned(key.getModulus())));
+			jwk.put("e", encoder.encodeToString(unsigned(key.getPublicExponent())));
+			jwks.add(jwk);
+		});
+		return objectMapper.writeValueAsString(Map.of("keys", jwks));
+	}
+
+	/**
+	 * Returns the big-endian bytes of a key component without a sign byte.
+	 *
+	 * @param value the key component
+	 * @return the bytes
+	 */
+	private static byte[] unsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+	}
+
+	/**
+	 * Generates a new RSA public key.
+	 *
+	 * @return the public key
+	 * @throws GeneralSecurityException if no RSA key pair can be generated
+	 */
+	private static RSAPublicKey generateKey() throws GeneralSecurityException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		return (RSAPublicKey) generator.generateKeyPair().getPublic();
+	}
+
+	/**
+	 * Polls the given supplier until it returns a value.
+	 *
+	 * @param supplier the supplier to poll
+	 * @param <T> the type of the value
+	 * @return the value
+	 * @throws InterruptedException if the test is interrupted while waiting
+	 */
+	private static <T> T await(Supplier<T> supplier) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + AWAIT_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			T value = supplier.get();
+			if (value != null) {
+				return value;
+			}
+			Thread.sleep(20L);
+		}
+		fail("Timed out waiting for the key set");
+		return null;
+	}
+}
@@ -0,0 +1,212 @@
+package com.example.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link JwtUtil}.
+ */
+public class JwtUtilTest {
+
+	private static final String SECRET = "test-secret";
+
+	private MeterRegistry meterRegistry;
+	private JwtUtil jwtUtil;
+
+	/**
+	 * Sets up the test environment before each test.
+	 */
+	@BeforeEach
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		jwtUtil = new JwtUtil(Algorithm.HMAC256(SECRET), 3600000L, 100L, 60000L, meterRegistry);
+	}
+
+	/**
+	 * Tests that a token is decoded into its principal.
+	 */
+	@Test
+	public void createdTokensAreVerified() {
+		String token = jwtUtil.createToken("testuser", List.of(CommonSecurityConstants.ROLE_USER));
+
+		JwtPrincipal principal = jwtUtil.getPrincipal(token);
+		assertEquals("testuser", principal.getUsername());
+		assertEquals(List.of(CommonSecurityConstants.ROLE_USER), principal.getRoles());
+		assertTrue(principal.getExpiresAt().isAfter(Instant.now()));
+		assertEquals("testuser", jwtUtil.getUsername(token));
+		assertEquals(List.of(CommonSecurityConstants.ROLE_USER), jwtUtil.getRoles(token));
+	}
+
+	/**
+	 * Tests that a token is verified only once while its result is cached.
+	 */
+	@Test
+	public void verifiedTokensAreCached() {
+		String token = jwtUtil.createToken("testuser", List.of(CommonSecurityConstants.ROLE_USER));
+		assertNull(jwtUtil.getCachedVerification(token));
+
+		TokenVerification first = jwtUtil.verifyToken(token);
+		TokenVerification second = jwtUtil.verifyToken(token);
+
+		assertTrue(first.isValid());
+		assertSame(first, second);
+		assertSame(first, jwtUtil.getCachedVerification(token));
+		assertEquals(1, verificationCount());
+	}
+
+	/**
+	 * Tests that a cached token is no longer accepted once it has expired.
+	 *
+	 * @throws InterruptedException if the test is interrupted while waiting for the token to expire
+	 */
+	@Test
+	public void cachedTokensExpireWithTheToken() throws InterruptedException {
+		JwtUtil shortLived = new JwtUtil(Algorithm.HMAC256(SECRET), 1000L, 100L, 60000L, meterRegistry);
+		String token = shortLived.createToken("testuser", List.of(CommonSecurityConstants.ROLE_USER));
+		TokenVerification verification = shortLived.verifyToken(token);
+		assertTrue(verification.isValid());
+
+		long untilExpired = verification.getPrincipal().getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+		Thread.sleep(Math.max(0L, untilExpired) + 100L);
+
+		assertNull(shortLived.getCachedVerification(token));
+		assertFalse(shortLived.verifyToken(token).isValid());
+	}
+
+	/**
+	 * Tests that a rejected token is cached as well, so replaying it skips verification.
+	 */
+	@Test
+	public void rejectedTokensAreCached() {
+		JwtUtil otherIssuer = new JwtUtil(Algorithm.HMAC256("other-secret"), 3600000L, 100L, 60000L, new SimpleMeterRegistry());
+		String token = otherIssuer.createToken("testuser", List.of(CommonSecurityConstants.ROLE_ADMIN));
+
+		TokenVerification first = jwtUtil.verifyToken(token);
+		TokenVerification second = jwtUtil.verifyToken(token);
+
+		assertFalse(first.isValid());
+		assertSame(first, second);
+		assertEquals(1, verificationCount());
+		assertThrows(RuntimeException.class, () -> jwtUtil.getPrincipal(token));
+	}
+
+	/**
+	 * Tests that a token signed with a key that is not known yet is not cached as rejected, so it is accepted
+	 * as soon as the key becomes known.
+	 *
+	 * @throws Exception if no RSA key pair can be generated
+	 */
+	@Test
+	public void tokensWithUnknownKeysAreNotCachedAsRejected() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keyPair = generator.generateKeyPair();
+		JwtUtil issuer = new JwtUtil(Algorithm.RSA256(new TestKeyProvider(new AtomicReference<>(keyPair), "key")),
+				3600000L, 100L, 60000L, new SimpleMeterRegistry());
+		AtomicReference<KeyPair> knownKeys = new AtomicReference<>();
+		JwtUtil verifier = new JwtUtil(Algorithm.RSA256(new TestKeyProvider(knownKeys, "key")),
+				3600000L, 100L, 60000L, meterRegistry);
+		String token = issuer.createToken("testuser", List.of(CommonSecurityConstants.ROLE_USER));
+
+		assertFalse(verifier.verifyToken(token).isValid());
+		assertNull(verifier.getCachedVerification(token));
+
+		knownKeys.set(keyPair);
+		assertTrue(verifier.verifyToken(token).isValid());
+	}
+
+	/**
+	 * Tests that a correctly signed token whose roles claim is not a list of role names is rejected and cached
+	 * as rejected, instead of failing the verification.
+	 */
+	@Test
+	public void tokensWithMalformedRolesAreRejected() {
+		Algorithm algorithm = Algorithm.HMAC256(SECRET);
+		Date expiresAt = Date.from(Instant.now().plusSeconds(3600L));
+		String objectRole = JWT.create().withSubject("testuser").withExpiresAt(expiresAt)
+				.withPayload(Map.of("roles", List.of(Map.of("name", CommonSecurityConstants.ROLE_ADMIN))))
+				.sign(algorithm);
+		String nullRole = JWT.create().withSubject("testuser").withExpiresAt(expiresAt)
+				.withPayload(Map.of("roles", Arrays.asList(CommonSecurityConstants.ROLE_USER, null)))
+				.sign(algorithm);
+
+		for (String token : List.of(objectRole, nullRole)) {
+			TokenVerification result = jwtUtil.verifyToken(token);
+			assertFalse(result.isValid(), token);
+			assertSame(result, jwtUtil.getCachedVerification(token));
+		}
+	}
+
+	/**
+	 * Tests that values not shaped like a JWT are rejected without verification.
+	 */
+	@Test
+	public void malformedTokensAreRejectedWithoutVerification() {
+		for (String token : List.of("", "abc", "a.b", ".b.c", "a..c", "a.b.c.d")) {
+			assertFalse(jwtUtil.verifyToken(token).isValid(), token);
+		}
+		assertEquals(0, verificationCount());
+	}
+
+	/**
+	 * Provides a single RSA key pair that can be swapped, or is not known yet.
+	 */
+	private static final class TestKeyProvider implements RSAKeyProvider {
+
+		private final AtomicReference<KeyPair> keyPair;
+		private final String keyId;
+
+		private TestKeyProvider(AtomicReference<KeyPair> keyPair, String keyId) {
+			this.keyPair = keyPair;
+			this.keyId = keyId;
+		}
+
+		@Override
+		public RSAPublicKey getPublicKeyById(String keyId) {
+			KeyPair current = keyPair.get();
+			return current != null && this.keyId.equals(keyId) ? (RSAPublicKey) current.getPublic() : null;
+		}
+
+		@Override
+		public RSAPrivateKey getPrivateKey() {
+			return (RSAPrivateKey) keyPair.get().getPrivate();
+		}
+
+		@Override
+		public String getPrivateKeyId() {
+			return keyId;
+		}
+	}
+
+	/**
+	 * Returns how often a token signature was verified.
+	 *
+	 * @return the number of verifications
+	 */
+	private long verificationCount() {
+		return meterRegistry.timer("jwt.verification").count();
+	}
+}
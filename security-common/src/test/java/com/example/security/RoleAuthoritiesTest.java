@@ -0,0 +1,53 @@
+package com.example.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link RoleAuthorities}.
+ */
+public class RoleAuthoritiesTest {
+
+	/**
+	 * Tests that roles are mapped to prefixed authorities in order.
+	 */
+	@Test
+	public void rolesAreMappedToPrefixedAuthorities() {
+		List<GrantedAuthority> authorities = RoleAuthorities.of(List.of(CommonSecurityConstants.ROLE_USER,
+				CommonSecurityConstants.ROLE_ADMIN));
+
+		assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")), authorities);
+		assertTrue(RoleAuthorities.of(List.of()).isEmpty());
+	}
+
+	/**
+	 * Tests that equal role combinations share one immutable authority list.
+	 */
+	@Test
+	public void authoritiesAreSharedPerRoleCombination() {
+		List<GrantedAuthority> first = RoleAuthorities.of(List.of(CommonSecurityConstants.ROLE_USER));
+		List<GrantedAuthority> second = RoleAuthorities.of(List.of(new String(CommonSecurityConstants.ROLE_USER)));
+
+		assertSame(first, second);
+		assertThrows(UnsupportedOperationException.class, () -> first.add(new SimpleGrantedAuthority("ROLE_ADMIN")));
+	}
+
+	/**
+	 * Tests that role combinations beyond the interning limit are still mapped correctly.
+	 */
+	@Test
+	public void rolesBeyondTheInterningLimitAreMapped() {
+		for (int i = 0; i < 100; i++) {
+			String role = "ROLE" + i;
+			assertEquals(List.of(new SimpleGrantedAuthority("ROLE_" + role)), RoleAuthorities.of(List.of(role)));
+		}
+	}
+}
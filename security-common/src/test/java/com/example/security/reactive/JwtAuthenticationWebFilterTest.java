@@ -0,0 +1,233 @@
+package com.example.security.reactive;
+
+import com.example.security.CommonSecurityConstants;
+import com.example.security.IdentityHeaderCodec;
+import com.example.security.JwtPrincipal;
+import com.example.security.JwtUtil;
+import com.example.security.TokenVerification;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link JwtAuthenticationWebFilter}.
+ * <p>
+ * Requests are filtered on a Netty event executor standing in for the event loop of the gateway, and the
+ * threads verifying tokens and continuing the filter chain are recorded, so the tests fail if a verification
+ * blocks the event loop or the chain is left running on the verification scheduler.
+ * </p>
+ */
+public class JwtAuthenticationWebFilterTest {
+
+	private static final String TOKEN = "header.payload.signature";
+	private static final String PUBLIC_PATH = "/users/login";
+	private static final String EVENT_LOOP_THREAD = "event-loop";
+	private static final String VERIFICATION_THREAD = "jwt-verification";
+
+	private final JwtUtil jwtUtil = mock(JwtUtil.class);
+	private final IdentityHeaderCodec identityHeaderCodec = new IdentityHeaderCodec(true, "identity-secret");
+	private final DefaultEventExecutor eventLoop = new DefaultEventExecutor(new DefaultThreadFactory(EVENT_LOOP_THREAD));
+	private final AtomicReference<String> verifyingThread = new AtomicReference<>();
+	private final AtomicReference<String> chainThread = new AtomicReference<>();
+	private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+	private JwtAuthenticationWebFilter filter;
+
+	/**
+	 * Stops the event loop and the filter after each test.
+	 */
+	@AfterEach
+	public void tearDown() {
+		if (filter != null) {
+			filter.destroy();
+		}
+		eventLoop.shutdownGracefully(0L, 1L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Tests that uncached tokens are verified on the verification scheduler and the filter chain continues on the
+	 * event loop.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void offloadedVerificationReturnsToTheEventLoop() throws Exception {
+		givenVerification(validToken());
+		filter = new JwtAuthenticationWebFilter(jwtUtil, identityHeaderCodec, Set.of(PUBLIC_PATH),
+				Schedulers.newBoundedElastic(1, 10, VERIFICATION_THREAD));
+		MockServerWebExchange exchange = authenticatedExchange();
+
+		filterOnEventLoop(exchange, this::recordingChain);
+
+		assertTrue(verifyingThread.get().startsWith(VERIFICATION_THREAD), verifyingThread.get());
+		assertTrue(chainThread.get().startsWith(EVENT_LOOP_THREAD), chainThread.get());
+		assertNull(forwarded.get().getRequest().getHeaders().getFirst(CommonSecurityConstants.JWT_HEADER_STRING));
+		assertNotNull(forwarded.get().getRequest().getHeaders().getFirst(CommonSecurityConstants.IDENTITY_HEADER_STRING));
+		assertNotNull(forwarded.get().getAttribute(JwtAuthenticationWebFilter.PRINCIPAL_ATTRIBUTE));
+	}
+
+	/**
+	 * Tests that cached tokens are applied on the event loop without verification.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void cachedTokensAreNotVerifiedAgain() throws Exception {
+		when(jwtUtil.getCachedVerification(TOKEN)).thenReturn(validToken());
+		filter = new JwtAuthenticationWebFilter(jwtUtil, identityHeaderCodec, Set.of(PUBLIC_PATH),
+				Schedulers.newBoundedElastic(1, 10, VERIFICATION_THREAD));
+
+		filterOnEventLoop(authenticatedExchange(), this::recordingChain);
+
+		verify(jwtUtil, never()).verifyToken(TOKEN);
+		assertTrue(chainThread.get().startsWith(EVENT_LOOP_THREAD), chainThread.get());
+	}
+
+	/**
+	 * Tests that requests without a valid token are rejected and public paths are forwarded without one, dropping
+	 * identity headers sent by the client.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void requestsWithoutValidTokenAreRejected() throws Exception {
+		givenVerification(TokenVerification.invalid("Invalid signature"));
+		filter = new JwtAuthenticationWebFilter(jwtUtil, identityHeaderCodec, Set.of(PUBLIC_PATH));
+
+		MockServerWebExchange invalid = authenticatedExchange();
+		filterOnEventLoop(invalid, this::recordingChain);
+		assertEquals(HttpStatus.UNAUTHORIZED, invalid.getResponse().getStatusCode());
+
+		MockServerWebExchange anonymous = MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+		filterOnEventLoop(anonymous, this::recordingChain);
+		assertEquals(HttpStatus.UNAUTHORIZED, anonymous.getResponse().getStatusCode());
+		assertNull(forwarded.get());
+
+		MockServerWebExchange login = MockServerWebExchange.from(MockServerHttpRequest.post(PUBLIC_PATH)
+				.header(CommonSecurityConstants.IDENTITY_HEADER_STRING, "forged"));
+		filterOnEventLoop(login, this::recordingChain);
+		assertNull(forwarded.get().getRequest().getHeaders().getFirst(CommonSecurityConstants.IDENTITY_HEADER_STRING));
+	}
+
+	/**
+	 * Tests that a request is rejected with 503 when the verification scheduler is saturated.
+	 *
+	 * @throws Exception if an error occurs during the test
+	 */
+	@Test
+	public void saturatedVerificationIsRejected() throws Exception {
+		givenVerification(validToken());
+		Scheduler saturated = Schedulers.fromExecutor(task -> {
+			throw new RejectedExecutionException("Queue is full");
+		});
+		filter = new JwtAuthenticationWebFilter(jwtUtil, identityHeaderCodec, Set.of(PUBLIC_PATH), saturated);
+		MockServerWebExchange exchange = authenticatedExchange();
+
+		filterOnEventLoop(exchange, this::recordingChain);
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+		assertNull(forwarded.get());
+	}
+
+	/**
+	 * Tests that a rejected execution further down the filter chain is not mistaken for a saturated verification
+	 * scheduler.
+	 */
+	@Test
+	public void downstreamRejectionsArePropagated() {
+		givenVerification(validToken());
+		filter = new JwtAuthenticationWebFilter(jwtUtil, identityHeaderCodec, Set.of(PUBLIC_PATH),
+				Schedulers.newBoundedElastic(1, 10, VERIFICATION_THREAD));
+		MockServerWebExchange exchange = authenticatedExchange();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> filterOnEventLoop(exchange,
+				forwardedExchange -> Mono.error(new RejectedExecutionException("Downstream is full"))));
+
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		assertNull(exchange.getResponse().getStatusCode());
+	}
+
+	/**
+	 * Stubs the verification of the token, recording the thread it runs on.
+	 *
+	 * @param result the verification result
+	 */
+	private void givenVerification(TokenVerification result) {
+		when(jwtUtil.verifyToken(TOKEN)).thenAnswer(invocation -> {
+			verifyingThread.set(Thread.currentThread().getName());
+			return result;
+		});
+	}
+
+	/**
+	 * Filters the given exchange on the event loop and waits for the filter to complete.
+	 *
+	 * @param exchange the exchange to filter
+	 * @param chain the rest of the filter chain
+	 * @throws Exception if the filter fails or does not complete in time
+	 */
+	private void filterOnEventLoop(ServerWebExchange exchange, WebFilterChain chain) throws Exception {
+		eventLoop.submit(() -> filter.filter(exchange, chain).toFuture()).get(5L, TimeUnit.SECONDS)
+				.get(5L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The rest of the filter chain, recording the forwarded exchange and the thread it runs on.
+	 *
+	 * @param exchange the forwarded exchange
+	 * @return an empty Mono
+	 */
+	private Mono<Void> recordingChain(ServerWebExchange exchange) {
+		chainThread.set(Thread.currentThread().getName());
+		forwarded.set(exchange);
+		return Mono.empty();
+	}
+
+	/**
+	 * Creates an exchange carrying the bearer token.
+	 *
+	 * @return the exchange
+	 */
+	private static MockServerWebExchange authenticatedExchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/orders")
+				.header(CommonSecurityConstants.JWT_HEADER_STRING, CommonSecurityConstants.JWT_TOKEN_PREFIX + TOKEN));
+	}
+
+	/**
+	 * Creates the verification result of a valid token.
+	 *
+	 * @return the result
+	 */
+	private static TokenVerification validToken() {
+		return TokenVerification.valid(new JwtPrincipal("testuser", List.of(CommonSecurityConstants.ROLE_USER),
+				Instant.now().plus(1, ChronoUnit.HOURS)));
+	}
+}
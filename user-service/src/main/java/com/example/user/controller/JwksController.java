@@ -0,0 +1,39 @@
+package com.example.user.controller;
+
+import com.example.user.security.JwtSigningKey;
+import com.example.user.security.SecurityConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * REST controller publishing the public keys tokens are signed with.
+ * <p>
+ * Other services download the key set periodically and verify tokens locally, so it is not called per request.
+ * </p>
+ */
+@RestController
+public class JwksController {
+
+	private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+	@Autowired
+	private JwtSigningKey jwtSigningKey;
+
+	/**
+	 * Retrieves the JSON Web Key Set of the token signing keys.
+	 *
+	 * @return a ResponseEntity with status 200 (OK) and the key set, which is empty when tokens are signed with a shared secret
+	 */
+	@GetMapping(SecurityConstants.USERS_JWKS_URL)
+	public ResponseEntity<Map<String, Object>> getJwks() {
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic())
+				.body(jwtSigningKey.toJwkSet());
+	}
+}
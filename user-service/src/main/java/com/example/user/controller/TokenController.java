@@ -0,0 +1,86 @@
+package com.example.user.controller;
+
+import com.example.security.JwtUtil;
+import com.example.user.security.SecurityConstants;
+import com.example.user.service.CustomUserDetailsService;
+import com.example.user.service.RefreshTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller for renewing and revoking tokens.
+ * <p>
+ * Both endpoints are authenticated by the refresh token handed out at login instead of a password or access token.
+ * </p>
+ */
+@RestController
+@RequestMapping("/users/token")
+public class TokenController {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private CustomUserDetailsService customUserDetailsService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	/**
+	 * Issues a new access token for a refresh token.
+	 * <p>
+	 * The refresh token is consumed and replaced by a new one, which is returned in the refresh token header
+	 * next to the access token.
+	 * </p>
+	 *
+	 * @param refreshToken the refresh token
+	 * @return a ResponseEntity with status 200 (OK) and the new tokens in the headers,
+	 *         or 401 (Unauthorized) if the refresh token is unknown, expired or already used
+	 */
+	@PostMapping("/refresh")
+	public ResponseEntity<Void> refresh(@RequestHeader(SecurityConstants.REFRESH_TOKEN_HEADER_STRING) String refreshToken) {
+		Optional<String> username = refreshTokenService.consume(refreshToken);
+		if (username.isEmpty()) {
+			return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+
+		UserDetails userDetails;
+		try {
+			userDetails = customUserDetailsService.loadUserByUsername(username.get());
+		} catch (UsernameNotFoundException e) {
+			return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+
+		List<String> roles = userDetails.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.toList());
+		return ResponseEntity.ok()
+				.header(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwtUtil.createToken(userDetails.getUsername(), roles))
+				.header(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, refreshTokenService.create(userDetails.getUsername()))
+				.build();
+	}
+
+	/**
+	 * Revokes a refresh token, e.g. on logout.
+	 *
+	 * @param refreshToken the refresh token
+	 * @return a ResponseEntity with status 204 (No Content)
+	 */
+	@PostMapping("/revoke")
+	public ResponseEntity<Void> revoke(@RequestHeader(SecurityConstants.REFRESH_TOKEN_HEADER_STRING) String refreshToken) {
+		refreshTokenService.revoke(refreshToken);
+		return ResponseEntity.noContent().build();
+	}
+}
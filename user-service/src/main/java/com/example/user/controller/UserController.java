@@ -1,12 +1,16 @@
 package com.example.user.controller;
 
 import com.example.user.model.User;
+import com.example.user.security.PasswordHashingSaturatedException;
 import com.example.user.security.SecurityConstants;
 import com.example.user.service.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,9 +37,8 @@ public class UserController {
 	/**
 	 * Registers a new user.
 	 * <p>
-	 * This method checks if the username already exists and validates the user input.
-	 * If the user is valid and does not already exist, it encodes the password,
-	 * assigns the default user role, and saves the user.
+	 * This method validates the user input, encodes the password, assigns the default user role, and saves the user.
+	 * Duplicate usernames are detected by the unique constraint on the username when the user is saved.
 	 * </p>
 	 *
 	 * @param user the user to register
@@ -45,16 +48,30 @@ public class UserController {
 	 */
 	@PostMapping("/register")
 	public ResponseEntity<Void> register(@RequestBody User user) {
-		if (customUserDetailsService.findByUsername(user.getUsername()) != null) {
-			return new ResponseEntity<>(HttpStatus.CONFLICT);
-		}
 		if (user.getUsername() == null || user.getUsername().isEmpty() || user.getPassword() == null || user.getPassword().isEmpty()) {
 			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 		}
 
 		user.setRoles(Arrays.asList(SecurityConstants.ROLE_USER));
 		user.setPassword(passwordEncoder.encode(user.getPassword()));
-		customUserDetailsService.save(user);
+		try {
+			customUserDetailsService.save(user);
+		} catch (DataIntegrityViolationException e) {
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		}
 		return new ResponseEntity<>(HttpStatus.CREATED);
 	}
+
+	/**
+	 * Handles registrations rejected because the password hashing pool is saturated.
+	 *
+	 * @param e the rejection
+	 * @return a ResponseEntity with status 503 (Service Unavailable) asking the client to retry
+	 */
+	@ExceptionHandler(PasswordHashingSaturatedException.class)
+	public ResponseEntity<Void> handlePasswordHashingSaturated(PasswordHashingSaturatedException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.build();
+	}
 }
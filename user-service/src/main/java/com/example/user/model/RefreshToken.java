@@ -0,0 +1,61 @@
+package com.example.user.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+
+@Entity
+@Table(name = "refresh_token", indexes = @Index(name = "idx_refresh_token_username", columnList = "username"))
+public class RefreshToken
+{
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	@Column(nullable = false, unique = true)
+	private String tokenHash;
+	@Column(nullable = false)
+	private String username;
+	@Column(nullable = false)
+	private Instant expiresAt;
+
+	public Long getId()
+	{
+		return id;
+	}
+
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	public String getTokenHash()
+	{
+		return tokenHash;
+	}
+
+	public void setTokenHash(String tokenHash)
+	{
+		this.tokenHash = tokenHash;
+	}
+
+	public String getUsername()
+	{
+		return username;
+	}
+
+	public void setUsername(String username)
+	{
+		this.username = username;
+	}
+
+	public Instant getExpiresAt()
+	{
+		return expiresAt;
+	}
+
+	public void setExpiresAt(Instant expiresAt)
+	{
+		this.expiresAt = expiresAt;
+	}
+}
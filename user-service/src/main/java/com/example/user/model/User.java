@@ -7,7 +7,7 @@ import java.util.List;
 
 
 @Entity
-@Table(name = "\"user\"")
+@Table(name = "\"user\"", uniqueConstraints = @UniqueConstraint(name = "uk_user_username", columnNames = "username"))
 public class User
 {
 	@Id
@@ -0,0 +1,59 @@
+package com.example.user.repository;
+
+import com.example.user.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repository interface for {@link RefreshToken} instances.
+ * <p>
+ * Refresh tokens are stored by their hash, so a leaked database does not reveal usable tokens.
+ * </p>
+ */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+	/**
+	 * Finds a refresh token by its hash.
+	 *
+	 * @param tokenHash the hash of the refresh token
+	 * @return an Optional containing the refresh token, or empty if not found
+	 */
+	Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+	/**
+	 * Deletes a refresh token by its hash if it has not expired yet.
+	 * Only one of several concurrent callers can delete the token, which makes it single-use.
+	 *
+	 * @param tokenHash the hash of the refresh token
+	 * @param now the current time
+	 * @return the number of deleted tokens, 1 if the token was valid and 0 otherwise
+	 */
+	@Modifying
+	@Query("delete from RefreshToken t where t.tokenHash = :tokenHash and t.expiresAt > :now")
+	int deleteValidByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+	/**
+	 * Deletes a refresh token by its hash.
+	 *
+	 * @param tokenHash the hash of the refresh token
+	 * @return the number of deleted tokens
+	 */
+	@Modifying
+	@Query("delete from RefreshToken t where t.tokenHash = :tokenHash")
+	int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+	/**
+	 * Deletes all refresh tokens that expired before the given time.
+	 *
+	 * @param now the current time
+	 * @return the number of deleted tokens
+	 */
+	@Modifying
+	@Query("delete from RefreshToken t where t.expiresAt <= :now")
+	int deleteExpired(@Param("now") Instant now);
+}
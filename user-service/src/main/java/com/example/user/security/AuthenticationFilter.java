@@ -1,15 +1,19 @@
 package com.example.user.security;
 
+import com.example.security.JwtUtil;
+import com.example.user.service.RefreshTokenService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -21,23 +25,29 @@ import java.util.stream.Collectors;
 /**
  * Custom authentication filter for handling user authentication.
  * <p>
- * This filter processes authentication requests and generates JWT tokens upon successful authentication.
+ * This filter processes authentication requests and generates a JWT access token and a refresh token upon
+ * successful authentication.
  * </p>
  */
 public class AuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+	private static final String RETRY_AFTER_SECONDS = "1";
+
 	private final AuthenticationManager authenticationManager;
 	private final JwtUtil jwtUtil;
+	private final RefreshTokenService refreshTokenService;
 
 	/**
 	 * Constructor for AuthenticationFilter.
 	 *
 	 * @param authenticationManager the authentication manager
 	 * @param jwtUtil the utility class for creating JWT tokens
+	 * @param refreshTokenService the service issuing refresh tokens
 	 */
-	public AuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+	public AuthenticationFilter(AuthenticationManager authenticationManager, JwtUtil jwtUtil, RefreshTokenService refreshTokenService) {
 		this.authenticationManager = authenticationManager;
 		this.jwtUtil = jwtUtil;
+		this.refreshTokenService = refreshTokenService;
 		setFilterProcessesUrl(SecurityConstants.USERS_LOGIN_URL);
 	}
 
@@ -68,7 +78,7 @@ public class AuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 	/**
 	 * Handles successful authentication.
 	 * <p>
-	 * This method generates a JWT token for the authenticated user and adds it to the response header.
+	 * This method generates a JWT token and a refresh token for the authenticated user and adds them to the response headers.
 	 * </p>
 	 *
 	 * @param request the HTTP request
@@ -84,6 +94,32 @@ public class AuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 		UserDetails userDetails = (UserDetails) authResult.getPrincipal();
 		String jwt = jwtUtil.createToken(userDetails.getUsername(), convertAuthoritiesToRoles(userDetails.getAuthorities()));
 		response.addHeader(SecurityConstants.JWT_HEADER_STRING, SecurityConstants.JWT_TOKEN_PREFIX + jwt);
+		response.addHeader(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, refreshTokenService.create(userDetails.getUsername()));
+	}
+
+	/**
+	 * Handles failed authentication.
+	 * <p>
+	 * If the password could not be checked because the hashing pool is saturated, the request is answered with
+	 * 503 (Service Unavailable) so the client can retry; other failures are handled as usual.
+	 * </p>
+	 *
+	 * @param request the HTTP request
+	 * @param response the HTTP response
+	 * @param failed the authentication failure
+	 * @throws IOException if an input or output exception occurs
+	 * @throws ServletException if a servlet exception occurs
+	 */
+	@Override
+	protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response,
+			AuthenticationException failed) throws IOException, ServletException {
+		if (failed instanceof PasswordHashingSaturatedException) {
+			SecurityContextHolder.clearContext();
+			response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, failed.getMessage());
+			return;
+		}
+		super.unsuccessfulAuthentication(request, response, failed);
 	}
 
 	/**
@@ -0,0 +1,117 @@
+package com.example.user.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt password encoder that hashes on a dedicated, size-bounded thread pool.
+ * <p>
+ * BCrypt is deliberately CPU-heavy. Running it on a fixed number of threads keeps a burst of logins or
+ * registrations from occupying every CPU, so other endpoints stay responsive. Waiting hashes are queued up to a
+ * fixed capacity; beyond that a {@link PasswordHashingSaturatedException} is thrown immediately. Pool usage is
+ * published under the {@code executor.*} metrics with the tag {@code name=password-encoder}.
+ * </p>
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	private static final String EXECUTOR_NAME = "password-encoder";
+	private static final String SATURATED_MESSAGE = "Password hashing capacity exhausted";
+
+	private final BCryptPasswordEncoder delegate;
+	private final ThreadPoolExecutor pool;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructs a BoundedPasswordEncoder.
+	 *
+	 * @param strength the BCrypt cost factor of new hashes
+	 * @param threads the number of threads hashing passwords
+	 * @param queueCapacity the maximum number of hashes waiting for a thread
+	 * @param meterRegistry the registry the pool metrics are published to
+	 */
+	public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+		this.delegate = new BCryptPasswordEncoder(strength);
+		this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory(EXECUTOR_NAME + "-"), new ThreadPoolExecutor.AbortPolicy());
+		this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, EXECUTOR_NAME);
+	}
+
+	/**
+	 * Shuts down the hashing pool.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Hashes the given password on the hashing pool.
+	 *
+	 * @param rawPassword the password to hash
+	 * @return the BCrypt hash
+	 * @throws PasswordHashingSaturatedException if the hashing pool is saturated
+	 */
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> delegate.encode(rawPassword));
+	}
+
+	/**
+	 * Checks the given password against a hash on the hashing pool.
+	 *
+	 * @param rawPassword the password to check
+	 * @param encodedPassword the stored BCrypt hash
+	 * @return true if the password matches, false otherwise
+	 * @throws PasswordHashingSaturatedException if the hashing pool is saturated
+	 */
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	/**
+	 * Checks whether the given hash was created with a lower cost factor than the configured one,
+	 * so it is rehashed after the next successful login.
+	 *
+	 * @param encodedPassword the stored BCrypt hash
+	 * @return true if the hash should be upgraded, false otherwise
+	 */
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * Runs the given hashing task on the pool and waits for its result.
+	 *
+	 * @param task the hashing task
+	 * @param <T> the result type
+	 * @return the result of the task
+	 * @throws PasswordHashingSaturatedException if the task is rejected by the pool
+	 */
+	private <T> T run(Callable<T> task) {
+		try {
+			return executor.submit(task).get();
+		} catch (RejectedExecutionException e) {
+			throw new PasswordHashingSaturatedException(SATURATED_MESSAGE, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.user.security;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the key JWTs are signed with.
+ * <p>
+ * With {@code jwt.algorithm: HS256} (the default) tokens are signed with the shared {@code jwt.secret}.
+ * With {@code jwt.algorithm: RS256} they are signed with an RSA private key that never leaves this service; the
+ * public key is published as a JSON Web Key Set so other services can verify tokens without holding a secret.
+ * The key pair is read from {@code jwt.rsa.private-key} and {@code jwt.rsa.public-key} (Base64 encoded PKCS#8
+ * and X.509). Its key ID is derived from the public key, so a new key pair always gets a new key ID.
+ * </p>
+ * <p>
+ * A generated key pair is only used with {@code jwt.rsa.generate-key-pair: true}, meant for a single local
+ * instance: every instance would generate its own key and reject the tokens issued by the others. Without
+ * configured keys and that flag, the service fails to start.
+ * </p>
+ */
+@Component
+public class JwtSigningKey {
+
+	/**
+	 * Name of the symmetric signing algorithm.
+	 */
+	public static final String HS256 = "HS256";
+
+	/**
+	 * Name of the asymmetric signing algorithm.
+	 */
+	public static final String RS256 = "RS256";
+
+	private static final String RSA = "RSA";
+	private static final int RSA_KEY_SIZE = 2048;
+	private static final int KEY_ID_BYTES = 8;
+
+	private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final Algorithm algorithm;
+	private final RSAPublicKey publicKey;
+	private final String keyId;
+
+	/**
+	 * Constructs a JwtSigningKey.
+	 *
+	 * @param algorithmName the signing algorithm, HS256 or RS256
+	 * @param secretKey the secret key for HS256
+	 * @param privateKey the Base64 encoded PKCS#8 RSA private key for RS256, or empty to generate a key pair
+	 * @param publicKey the Base64 encoded X.509 RSA public key for RS256, or empty to generate a key pair
+	 * @param generateKeyPair whether a key pair may be generated at startup when none is configured
+	 * @throws IllegalStateException if the algorithm is unknown, or the keys are missing or cannot be read
+	 */
+	public JwtSigningKey(@Value("${jwt.algorithm:HS256}") String algorithmName,
+			@Value("${jwt.secret}") String secretKey,
+			@Value("${jwt.rsa.private-key:}") String privateKey,
+			@Value("${jwt.rsa.public-key:}") String publicKey,
+			@Value("${jwt.rsa.generate-key-pair:false}") boolean generateKeyPair) {
+		if (HS256.equals(algorithmName)) {
+			this.algorithm = Algorithm.HMAC256(secretKey);
+			this.publicKey = null;
+			this.keyId = null;
+		} else if (RS256.equals(algorithmName)) {
+			boolean configured = !privateKey.isEmpty() && !publicKey.isEmpty();
+			if (!configured && !generateKeyPair) {
+				throw new IllegalStateException("jwt.algorithm RS256 requires jwt.rsa.private-key and jwt.rsa.public-key, "
+						+ "or jwt.rsa.generate-key-pair for a single instance");
+			}
+			KeyPair keyPair = configured ? readKeyPair(privateKey, publicKey) : generateKeyPair();
+			this.publicKey = (RSAPublicKey) keyPair.getPublic();
+			this.keyId = keyIdOf(this.publicKey);
+			this.algorithm = Algorithm.RSA256(new SingleKeyProvider(this.publicKey, (RSAPrivateKey) keyPair.getPrivate(), this.keyId));
+		} else {
+			throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithmName);
+		}
+	}
+
+	/**
+	 * Returns the algorithm tokens are signed and verified with.
+	 *
+	 * @return the algorithm
+	 */
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Returns the ID of the signing key, which is written to the header of issued tokens.
+	 *
+	 * @return the key ID, or null for HS256
+	 */
+	public String getKeyId() {
+		return keyId;
+	}
+
+	/**
+	 * Returns the public keys as a JSON Web Key Set.
+	 *
+	 * @return the key set, which has no keys for HS256
+	 */
+	public Map<String, Object> toJwkSet() {
+		if (publicKey == null) {
+			return Map.of("keys", List.of());
+		}
+		Map<String, Object> jwk = new LinkedHashMap<>();
+		jwk.put("kty", RSA);
+		jwk.put("use", "sig");
+		jwk.put("alg", RS256);
+		jwk.put("kid", keyId);
+		jwk.put("n", encodeUnsigned(publicKey.getModulus()));
+		jwk.put("e", encodeUnsigned(publicKey.getPublicExponent()));
+		return Map.of("keys", List.of(jwk));
+	}
+
+	/**
+	 * Generates a new RSA key pair.
+	 *
+	 * @return the key pair
+	 */
+	private static KeyPair generateKeyPair() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance(RSA);
+			generator.initialize(RSA_KEY_SIZE);
+			return generator.generateKeyPair();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads an RSA key pair from its Base64 encoded form.
+	 *
+	 * @param privateKey the Base64 encoded PKCS#8 private key
+	 * @param publicKey the Base64 encoded X.509 public key
+	 * @return the key pair
+	 */
+	private static KeyPair readKeyPair(String privateKey, String publicKey) {
+		try {
+			KeyFactory keyFactory = KeyFactory.getInstance(RSA);
+			return new KeyPair(
+					keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(publicKey))),
+					keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(privateKey))));
+		} catch (GeneralSecurityException | IllegalArgumentException e) {
+			throw new IllegalStateException("Invalid jwt.rsa key pair", e);
+		}
+	}
+
+	/**
+	 * Derives a key ID from a public key.
+	 *
+	 * @param publicKey the public key
+	 * @return the Base64url encoded prefix of the SHA-256 digest of the encoded key
+	 */
+	private static String keyIdOf(RSAPublicKey publicKey) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+			return URL_ENCODER.encodeToString(Arrays.copyOf(digest, KEY_ID_BYTES));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Encodes a key component as required by JSON Web Keys: big-endian without a sign byte, Base64url encoded.
+	 *
+	 * @param value the key component
+	 * @return the encoded component
+	 */
+	private static String encodeUnsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		if (bytes.length > 1 && bytes[0] == 0) {
+			bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return URL_ENCODER.encodeToString(bytes);
+	}
+
+	/**
+	 * Provides the single RSA key pair of this service. Issued tokens carry its key ID, and tokens with any
+	 * other key ID are rejected.
+	 */
+	private static final class SingleKeyProvider implements RSAKeyProvider {
+
+		private final RSAPublicKey publicKey;
+		private final RSAPrivateKey privateKey;
+		private final String keyId;
+
+		private SingleKeyProvider(RSAPublicKey publicKey, RSAPrivateKey privateKey, String keyId) {
+			this.publicKey = publicKey;
+			this.privateKey = privateKey;
+			this.keyId = keyId;
+		}
+
+		@Override
+		public RSAPublicKey getPublicKeyById(String keyId) {
+			return this.keyId.equals(keyId) ? publicKey : null;
+		}
+
+		@Override
+		public RSAPrivateKey getPrivateKey() {
+			return privateKey;
+		}
+
+		@Override
+		public String getPrivateKeyId() {
+			return keyId;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.user.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Exception thrown when the password hashing pool is saturated and cannot accept another password check.
+ * Callers answer with 503 (Service Unavailable) instead of waiting, so the client can retry later.
+ */
+public class PasswordHashingSaturatedException extends AuthenticationServiceException {
+
+	/**
+	 * Constructs a PasswordHashingSaturatedException.
+	 *
+	 * @param message the detail message
+	 * @param cause the rejection of the hashing task
+	 */
+	public PasswordHashingSaturatedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -1,7 +1,12 @@
 package com.example.user.security;
 
+import com.example.security.CommonSecurityConstants;
+
 /**
  * Constants used for security configuration.
+ * <p>
+ * The values shared by all services are defined in {@link CommonSecurityConstants}.
+ * </p>
  */
 public final class SecurityConstants
 {
@@ -10,23 +15,28 @@ public final class SecurityConstants
 	/**
 	 * Prefix for the JWT token.
 	 */
-	public static final String JWT_TOKEN_PREFIX = "Bearer ";
+	public static final String JWT_TOKEN_PREFIX = CommonSecurityConstants.JWT_TOKEN_PREFIX;
 
 	/**
 	 * Header string for the JWT token.
 	 */
-	public static final String JWT_HEADER_STRING = "Authorization";
+	public static final String JWT_HEADER_STRING = CommonSecurityConstants.JWT_HEADER_STRING;
+
+	/**
+	 * Header string for the refresh token.
+	 */
+	public static final String REFRESH_TOKEN_HEADER_STRING = "Refresh-Token";
 
 	// Role based constants
 	/**
 	 * Role constant for users.
 	 */
-	public static final String ROLE_USER = "USER";
+	public static final String ROLE_USER = CommonSecurityConstants.ROLE_USER;
 
 	/**
 	 * Role constant for administrators.
 	 */
-	public static final String ROLE_ADMIN = "ADMIN";
+	public static final String ROLE_ADMIN = CommonSecurityConstants.ROLE_ADMIN;
 
 	// URL patterns
 	/**
@@ -34,6 +44,9 @@ public final class SecurityConstants
 	 */
 	public static final String USERS_REGISTER_URL = "/users/register";
 	public static final String USERS_LOGIN_URL = "/users/login";
+	public static final String USERS_TOKEN_REFRESH_URL = "/users/token/refresh";
+	public static final String USERS_TOKEN_REVOKE_URL = "/users/token/revoke";
+	public static final String USERS_JWKS_URL = "/users/.well-known/jwks.json";
 
 	/**
 	 * Private constructor to prevent instantiation.
@@ -1,7 +1,11 @@
 package com.example.user.security;
 
+import com.example.security.JwtUtil;
 import com.example.user.service.CustomUserDetailsService;
+import com.example.user.service.RefreshTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +14,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -28,18 +31,18 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 public class WebSecurityConfig {
 
 	private final CustomUserDetailsService customUserDetailsService;
-	private final JwtUtil jwtUtil;
+	private final RefreshTokenService refreshTokenService;
 
 	/**
 	 * Constructs a new WebSecurityConfig.
 	 *
 	 * @param customUserDetailsService the custom user details service
-	 * @param jwtUtil the JWT utility
+	 * @param refreshTokenService the service issuing refresh tokens at login
 	 */
 	@Autowired
-	public WebSecurityConfig(CustomUserDetailsService customUserDetailsService, JwtUtil jwtUtil) {
+	public WebSecurityConfig(CustomUserDetailsService customUserDetailsService, RefreshTokenService refreshTokenService) {
 		this.customUserDetailsService = customUserDetailsService;
-		this.jwtUtil = jwtUtil;
+		this.refreshTokenService = refreshTokenService;
 	}
 
 	/**
@@ -51,19 +54,23 @@ public class WebSecurityConfig {
 	 *
 	 * @param http the HttpSecurity object
 	 * @param authenticationManager the authentication manager
+	 * @param jwtUtil the JWT utility issuing tokens after login
 	 * @return the configured SecurityFilterChain
 	 * @throws Exception if an error occurs during configuration
 	 */
 	@Bean
-	public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
-		final AuthenticationFilter authenticationFilter = new AuthenticationFilter(authenticationManager, jwtUtil);
+	public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationManager authenticationManager, JwtUtil jwtUtil) throws Exception {
+		final AuthenticationFilter authenticationFilter = new AuthenticationFilter(authenticationManager, jwtUtil, refreshTokenService);
 
 		http.csrf(csrf -> csrf.disable())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(authz -> authz
 						.requestMatchers(
 								new AntPathRequestMatcher(SecurityConstants.USERS_REGISTER_URL),
-								new AntPathRequestMatcher(SecurityConstants.USERS_LOGIN_URL)
+								new AntPathRequestMatcher(SecurityConstants.USERS_LOGIN_URL),
+								new AntPathRequestMatcher(SecurityConstants.USERS_TOKEN_REFRESH_URL),
+								new AntPathRequestMatcher(SecurityConstants.USERS_TOKEN_REVOKE_URL),
+								new AntPathRequestMatcher(SecurityConstants.USERS_JWKS_URL)
 						).permitAll()
 						.anyRequest().authenticated()
 				)
@@ -72,6 +79,28 @@ public class WebSecurityConfig {
 		return http.build();
 	}
 
+	/**
+	 * Configures the JWT utility issuing and verifying tokens with the signing key of this service.
+	 * <p>
+	 * Declaring it here replaces the verifying-only JwtUtil of the shared security module.
+	 * </p>
+	 *
+	 * @param signingKey the key tokens are signed with
+	 * @param expirationTime the lifetime of issued tokens in milliseconds
+	 * @param cacheMaxSize the maximum number of cached verified tokens
+	 * @param invalidCacheTtl how long rejected tokens are cached in milliseconds
+	 * @param meterRegistry the registry the cache and verification metrics are published to
+	 * @return the JwtUtil
+	 */
+	@Bean
+	public JwtUtil jwtUtil(JwtSigningKey signingKey,
+			@Value("${jwt.expiration}") long expirationTime,
+			@Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+			@Value("${jwt.cache.invalid-ttl-ms:60000}") long invalidCacheTtl,
+			MeterRegistry meterRegistry) {
+		return new JwtUtil(signingKey.getAlgorithm(), expirationTime, cacheMaxSize, invalidCacheTtl, meterRegistry);
+	}
+
 	/**
 	 * Configures the authentication manager.
 	 *
@@ -86,24 +115,39 @@ public class WebSecurityConfig {
 
 	/**
 	 * Configures the password encoder.
+	 * <p>
+	 * Passwords are hashed with BCrypt on a bounded thread pool, so login bursts cannot starve other requests.
+	 * </p>
 	 *
+	 * @param strength the BCrypt cost factor of new hashes
+	 * @param threads the number of threads hashing passwords
+	 * @param queueCapacity the maximum number of hashes waiting for a thread before requests are rejected
+	 * @param meterRegistry the registry the pool metrics are published to
 	 * @return the PasswordEncoder
 	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(@Value("${password-encoder.strength:10}") int strength,
+			@Value("${password-encoder.threads:4}") int threads,
+			@Value("${password-encoder.queue-capacity:50}") int queueCapacity,
+			MeterRegistry meterRegistry) {
+		return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
 	}
 
 	/**
 	 * Configures the DAO authentication provider.
+	 * <p>
+	 * Hashes created with a lower cost factor than the configured one are replaced after a successful login.
+	 * </p>
 	 *
+	 * @param passwordEncoder the password encoder
 	 * @return the DaoAuthenticationProvider
 	 */
 	@Bean
-	public DaoAuthenticationProvider authenticationProvider() {
+	public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
 		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(customUserDetailsService);
-		authProvider.setPasswordEncoder(passwordEncoder());
+		authProvider.setUserDetailsPasswordService(customUserDetailsService);
+		authProvider.setPasswordEncoder(passwordEncoder);
 		return authProvider;
 	}
 }
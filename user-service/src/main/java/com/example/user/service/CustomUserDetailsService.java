@@ -2,30 +2,66 @@ package com.example.user.service;
 
 import com.example.user.model.User;
 import com.example.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing custom user details.
  * <p>
- * This service implements {@link UserDetailsService} to load user-specific data during authentication.
+ * This service implements {@link UserDetailsService} to load user-specific data during authentication
+ * and {@link UserDetailsPasswordService} to store upgraded password hashes after a successful login.
  * It also provides methods for saving users and finding users by their username.
  * </p>
+ * <p>
+ * Loaded user details are kept in a bounded cache keyed by username, which is invalidated whenever a user is saved.
+ * Callers always receive a copy, because Spring Security erases the credentials of the returned user details after
+ * authentication. Cache statistics are published under the {@code cache.*} metrics with the tag
+ * {@code cache=user-details}.
+ * </p>
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+	private static final String CACHE_NAME = "user-details";
 
 	@Autowired
 	private UserRepository userRepository;
 
+	private final Cache<String, UserDetails> userDetailsCache;
+
+	/**
+	 * Constructs a CustomUserDetailsService.
+	 *
+	 * @param cacheMaxSize the maximum number of cached user details
+	 * @param cacheTtlMillis the time after which cached user details expire, in milliseconds
+	 * @param meterRegistry the registry the cache metrics are published to
+	 */
+	public CustomUserDetailsService(@Value("${user-details-cache.max-size:10000}") long cacheMaxSize,
+			@Value("${user-details-cache.ttl-ms:300000}") long cacheTtlMillis,
+			MeterRegistry meterRegistry) {
+		this.userDetailsCache = Caffeine.newBuilder()
+				.maximumSize(cacheMaxSize)
+				.expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache, CACHE_NAME);
+	}
+
 	/**
 	 * Loads the user details by username.
 	 * <p>
@@ -38,10 +74,26 @@ public class CustomUserDetailsService implements UserDetailsService {
 	 */
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		UserDetails userDetails = userDetailsCache.get(username, this::loadFromRepository);
+
+		if (userDetails == null) {
+			throw new UsernameNotFoundException("User not found");
+		}
+
+		return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+	}
+
+	/**
+	 * Loads the user details from the repository.
+	 *
+	 * @param username the username of the user
+	 * @return the user details, or null if the user is not found
+	 */
+	private UserDetails loadFromRepository(String username) {
 		User user = userRepository.findByUsername(username);
 
 		if (user == null) {
-			throw new UsernameNotFoundException("User not found");
+			return null;
 		}
 
 		List<GrantedAuthority> authorities = user.getRoles().stream()
@@ -52,13 +104,37 @@ public class CustomUserDetailsService implements UserDetailsService {
 	}
 
 	/**
-	 * Saves a user in the repository.
+	 * Replaces the stored password hash of a user, e.g. after the BCrypt cost factor was raised.
+	 *
+	 * @param user the user details of the authenticated user
+	 * @param newPassword the new password hash
+	 * @return the user details with the new password hash
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		User storedUser = userRepository.findByUsername(user.getUsername());
+		if (storedUser != null) {
+			storedUser.setPassword(newPassword);
+			save(storedUser);
+		}
+		return org.springframework.security.core.userdetails.User.withUserDetails(user)
+				.password(newPassword)
+				.build();
+	}
+
+	/**
+	 * Saves a user in the repository and invalidates the cached user details.
 	 *
 	 * @param user the user to save
 	 * @return the saved user
+	 * @throws org.springframework.dao.DataIntegrityViolationException if the username is already taken
 	 */
 	public User save(User user) {
-		return userRepository.save(user);
+		try {
+			return userRepository.save(user);
+		} finally {
+			userDetailsCache.invalidate(user.getUsername());
+		}
 	}
 
 	/**
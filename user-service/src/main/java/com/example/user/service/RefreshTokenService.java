@@ -0,0 +1,108 @@
+package com.example.user.service;
+
+import com.example.user.model.RefreshToken;
+import com.example.user.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Service for issuing, rotating and revoking refresh tokens.
+ * <p>
+ * A refresh token is an opaque random string handed out at login. It lets clients obtain new short-lived access
+ * tokens without sending their password again, which avoids a BCrypt check per token renewal. Only the SHA-256
+ * hash of a token is stored, and every token can be used once: refreshing replaces it with a new one.
+ * </p>
+ */
+@Service
+public class RefreshTokenService {
+
+	private static final int TOKEN_BYTES = 32;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Value("${jwt.refresh-expiration:2592000000}")
+	private long refreshExpirationTime; // in milliseconds
+
+	/**
+	 * Issues a new refresh token for the given user.
+	 *
+	 * @param username the username of the user
+	 * @return the refresh token
+	 */
+	public String create(String username) {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		secureRandom.nextBytes(bytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		RefreshToken refreshToken = new RefreshToken();
+		refreshToken.setTokenHash(hash(token));
+		refreshToken.setUsername(username);
+		refreshToken.setExpiresAt(Instant.now().plus(Duration.ofMillis(refreshExpirationTime)));
+		refreshTokenRepository.save(refreshToken);
+		return token;
+	}
+
+	/**
+	 * Consumes the given refresh token. A consumed token cannot be used again.
+	 *
+	 * @param token the refresh token
+	 * @return an Optional containing the username of the token owner, or empty if the token is unknown, expired or already used
+	 */
+	@Transactional
+	public Optional<String> consume(String token) {
+		String tokenHash = hash(token);
+		return refreshTokenRepository.findByTokenHash(tokenHash)
+				.filter(refreshToken -> refreshTokenRepository.deleteValidByTokenHash(tokenHash, Instant.now()) == 1)
+				.map(RefreshToken::getUsername);
+	}
+
+	/**
+	 * Revokes the given refresh token.
+	 *
+	 * @param token the refresh token
+	 * @return true if the token existed, false otherwise
+	 */
+	@Transactional
+	public boolean revoke(String token) {
+		return refreshTokenRepository.deleteByTokenHash(hash(token)) > 0;
+	}
+
+	/**
+	 * Periodically deletes expired refresh tokens.
+	 */
+	@Transactional
+	@Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval:3600000}")
+	public void deleteExpired() {
+		refreshTokenRepository.deleteExpired(Instant.now());
+	}
+
+	/**
+	 * Computes the stored hash of a refresh token.
+	 *
+	 * @param token the refresh token
+	 * @return the Base64 encoded SHA-256 hash of the token
+	 */
+	private static String hash(String token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
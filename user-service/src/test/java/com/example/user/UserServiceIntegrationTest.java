@@ -1,6 +1,7 @@
 package com.example.user;
 
 import com.example.user.model.User;
+import com.example.user.repository.UserRepository;
 import com.example.user.security.AuthenticationRequest;
 import com.example.user.security.SecurityConstants;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,12 +11,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -32,6 +42,9 @@ public class UserServiceIntegrationTest {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private UserRepository userRepository;
+
 	/**
 	 * Sets up the MockMvc instance with Spring Security before each test.
 	 */
@@ -60,6 +73,29 @@ public class UserServiceIntegrationTest {
 				.andExpect(status().isCreated());
 	}
 
+	/**
+	 * Tests the user registration with an already taken username.
+	 * Expects HTTP status 409 (Conflict) for the second registration.
+	 *
+	 * @throws Exception if an error occurs during the request
+	 */
+	@Test
+	void testUserRegistrationWithDuplicateUsername() throws Exception {
+		User user = new User();
+		user.setUsername("duplicateuser");
+		user.setPassword("password");
+
+		mockMvc.perform(post(SecurityConstants.USERS_REGISTER_URL)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(asJsonString(user)))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(post(SecurityConstants.USERS_REGISTER_URL)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(asJsonString(user)))
+				.andExpect(status().isConflict());
+	}
+
 	/**
 	 * Tests the user registration with missing data.
 	 * Expects HTTP status 400 (Bad Request) when username is missing.
@@ -123,6 +159,31 @@ public class UserServiceIntegrationTest {
 				.andExpect(status().isOk());
 	}
 
+	/**
+	 * Tests that a password hashed with a lower BCrypt cost than configured is rehashed on login.
+	 *
+	 * @throws Exception if an error occurs during the request
+	 */
+	@Test
+	void testUserLoginRehashesWeakPassword() throws Exception {
+		User user = new User();
+		user.setUsername("testuser3");
+		user.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+		user.setRoles(Collections.singletonList(SecurityConstants.ROLE_USER));
+		userRepository.save(user);
+
+		AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+		authenticationRequest.setUsername("testuser3");
+		authenticationRequest.setPassword("password");
+
+		mockMvc.perform(post(SecurityConstants.USERS_LOGIN_URL)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(asJsonString(authenticationRequest)))
+				.andExpect(status().isOk());
+
+		assertTrue(userRepository.findByUsername("testuser3").getPassword().startsWith("$2a$10$"));
+	}
+
 	/**
 	 * Tests the user login with invalid credentials.
 	 * Expects HTTP status 401 (Unauthorized) when credentials are invalid.
@@ -141,6 +202,65 @@ public class UserServiceIntegrationTest {
 				.andExpect(status().isUnauthorized());
 	}
 
+	/**
+	 * Tests that a refresh token issued at login yields a new access token once and is rejected when reused.
+	 *
+	 * @throws Exception if an error occurs during the request
+	 */
+	@Test
+	void testTokenRefreshRotatesRefreshToken() throws Exception {
+		User user = new User();
+		user.setUsername("testuser4");
+		user.setPassword("password");
+
+		mockMvc.perform(post(SecurityConstants.USERS_REGISTER_URL)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(asJsonString(user)))
+				.andExpect(status().isCreated());
+
+		AuthenticationRequest authenticationRequest = new AuthenticationRequest();
+		authenticationRequest.setUsername("testuser4");
+		authenticationRequest.setPassword("password");
+
+		String refreshToken = mockMvc.perform(post(SecurityConstants.USERS_LOGIN_URL)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(asJsonString(authenticationRequest)))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(SecurityConstants.REFRESH_TOKEN_HEADER_STRING))
+				.andReturn().getResponse().getHeader(SecurityConstants.REFRESH_TOKEN_HEADER_STRING);
+
+		String rotatedToken = mockMvc.perform(post(SecurityConstants.USERS_TOKEN_REFRESH_URL)
+						.header(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, refreshToken))
+				.andExpect(status().isOk())
+				.andExpect(header().string(SecurityConstants.JWT_HEADER_STRING, startsWith(SecurityConstants.JWT_TOKEN_PREFIX)))
+				.andReturn().getResponse().getHeader(SecurityConstants.REFRESH_TOKEN_HEADER_STRING);
+		assertNotEquals(refreshToken, rotatedToken);
+
+		mockMvc.perform(post(SecurityConstants.USERS_TOKEN_REFRESH_URL)
+						.header(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, refreshToken))
+				.andExpect(status().isUnauthorized());
+
+		mockMvc.perform(post(SecurityConstants.USERS_TOKEN_REVOKE_URL)
+						.header(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, rotatedToken))
+				.andExpect(status().isNoContent());
+
+		mockMvc.perform(post(SecurityConstants.USERS_TOKEN_REFRESH_URL)
+						.header(SecurityConstants.REFRESH_TOKEN_HEADER_STRING, rotatedToken))
+				.andExpect(status().isUnauthorized());
+	}
+
+	/**
+	 * Tests that the token signing keys are published without authentication.
+	 *
+	 * @throws Exception if an error occurs during the request
+	 */
+	@Test
+	void testGetJwks() throws Exception {
+		mockMvc.perform(get(SecurityConstants.USERS_JWKS_URL))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.keys").isArray());
+	}
+
 	/**
 	 * Converts an object to its JSON representation as a string.
 	 *